@@ -0,0 +1,99 @@
+package com.laba.ilaba.benchmark;
+
+import com.laba.ilaba.analytics.AnalyticsEngine;
+import com.laba.ilaba.analytics.OrderColumns;
+import com.laba.ilaba.dto.AnalyticsQueryRequest;
+import com.laba.ilaba.dto.AnalyticsQueryResponse;
+import com.laba.ilaba.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full scans of a synthetic {@link OrderColumns} snapshot, no database involved: average rental length
+ * by make and rejection rate by price band over one year of start dates. Compare {@code parallelism}
+ * 1 with the machine's core count for the fork/join speed-up. Needs a heap of about 40 bytes per row,
+ * e.g. {@code -Xmx2g} for the default 20 million rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalyticsScanBenchmark {
+
+    private static final String[] MAKES = {"Audi", "BMW", "Ford", "Kia", "Skoda", "Toyota", "Volvo"};
+
+    @Param({"20000000"})
+    public int orders;
+
+    @Param({"1", "8"})
+    public int parallelism;
+
+    private OrderColumns columns;
+
+    private AnalyticsEngine engine;
+
+    private AnalyticsQueryRequest daysByMake;
+
+    private AnalyticsQueryRequest rejectionsByPriceBand;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Order.Status[] statuses = Order.Status.values();
+        OrderColumns.Builder builder = OrderColumns.builder();
+        int cars = 2_000;
+        for (int car = 1; car <= cars; car++) {
+            builder.addCar(car, MAKES[car % MAKES.length], 2010 + car % 15, 3_000 + random.nextInt(30_000));
+        }
+        int firstDay = (int) LocalDate.of(2020, 1, 1).toEpochDay();
+        for (int i = 0; i < orders; i++) {
+            Order.Status status = statuses[random.nextInt(statuses.length)];
+            int start = firstDay + random.nextInt(6 * 365);
+            int days = 1 + random.nextInt(21);
+            builder.addOrder(status == Order.Status.REJECTED ? null : 1L + random.nextInt(cars),
+                    start, start + days, days * (3_000L + random.nextInt(30_000)), status);
+        }
+        columns = builder.build();
+        engine = new AnalyticsEngine(parallelism);
+
+        daysByMake = new AnalyticsQueryRequest(List.of(), "make", null);
+        rejectionsByPriceBand = new AnalyticsQueryRequest(List.of(
+                new AnalyticsQueryRequest.Filter("startDate", "gte", "2024-01-01", null),
+                new AnalyticsQueryRequest.Filter("startDate", "lt", "2025-01-01", null)),
+                "priceBand", BigDecimal.valueOf(250));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.stop();
+    }
+
+    @Benchmark
+    public AnalyticsQueryResponse averageDaysByMake() {
+        return engine.query(columns, daysByMake);
+    }
+
+    @Benchmark
+    public AnalyticsQueryResponse rejectionRateByPriceBand() {
+        return engine.query(columns, rejectionsByPriceBand);
+    }
+}
@@ -0,0 +1,35 @@
+package com.laba.ilaba.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opens the application's persistence unit against {@code ilaba.bench.db-url} for benchmarks. The
+ * schema is left alone and the shared cache is off, so every read reaches the database.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static EntityManagerFactory open(String sessionName, Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.SESSION_NAME, sessionName);
+        properties.put(PersistenceUnitProperties.JDBC_URL, url());
+        properties.put(PersistenceUnitProperties.SCHEMA_GENERATION_DATABASE_ACTION,
+                PersistenceUnitProperties.SCHEMA_GENERATION_NONE_ACTION);
+        properties.put(PersistenceUnitProperties.CACHE_SHARED_DEFAULT, "false");
+        properties.put(PersistenceUnitProperties.CACHE_SHARED_ + "Car", "false");
+        properties.put(PersistenceUnitProperties.CACHE_SHARED_ + "User", "false");
+        properties.putAll(overrides);
+        return Persistence.createEntityManagerFactory("default", properties);
+    }
+
+    static String url() {
+        return System.getProperty("ilaba.bench.db-url", "jdbc:postgresql://localhost:5432/postgres");
+    }
+}
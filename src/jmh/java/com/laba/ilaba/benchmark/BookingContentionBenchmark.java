@@ -0,0 +1,147 @@
+package com.laba.ilaba.benchmark;
+
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.service.BookingCoordinator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.RollbackException;
+import jakarta.ws.rs.ClientErrorException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads booking the same car against a real PostgreSQL, comparing {@code direct} (every request
+ * reads the car, flips its availability and loses on the version check at commit, as
+ * {@code OrderService.createOrder} did) with {@code coordinated} (requests go through
+ * {@link BookingCoordinator} and only the claim holder reaches the database). A winner frees the car
+ * again right away so the race never ends. The order insert is left out so repeated runs do not grow
+ * the table; in the direct path it only adds to the work that losers throw away.
+ * <p>
+ * {@code booked} and {@code rejected} are reported per second next to the attempt rate. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=BookingContentionBenchmark -Dilaba.bench.db-url=...}; at least one
+ * car must exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class BookingContentionBenchmark {
+
+    @Param({"direct", "coordinated"})
+    public String path;
+
+    private EntityManagerFactory emf;
+
+    private BookingCoordinator coordinator;
+
+    private long carId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open("benchmark-booking-" + path, Map.of());
+        coordinator = new BookingCoordinator();
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Car> cars = em.createNamedQuery(Car.FIND_ALL, Car.class).setMaxResults(1).getResultList();
+            if (cars.isEmpty()) {
+                throw new IllegalStateException("BookingContentionBenchmark needs at least one car");
+            }
+            carId = cars.get(0).getId();
+            setAvailable(em, true);
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        emf.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Attempts {
+        public long booked;
+        public long rejected;
+
+        private EntityManager em;
+
+        @Setup(Level.Trial)
+        public void open(BookingContentionBenchmark benchmark) {
+            em = benchmark.emf.createEntityManager();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public boolean book(Attempts attempts) {
+        boolean booked;
+        if ("coordinated".equals(path)) {
+            try {
+                booked = coordinator.book(carId, () -> tryBook(attempts.em));
+            } catch (ClientErrorException e) {
+                booked = false;
+            }
+        } else {
+            booked = tryBook(attempts.em);
+        }
+        if (booked) {
+            attempts.booked++;
+        } else {
+            attempts.rejected++;
+        }
+        return booked;
+    }
+
+    private boolean tryBook(EntityManager em) {
+        em.clear();
+        EntityTransaction transaction = em.getTransaction();
+        transaction.begin();
+        try {
+            Car car = em.find(Car.class, carId);
+            if (!car.getIsAvailable()) {
+                transaction.rollback();
+                return false;
+            }
+            car.setIsAvailable(false);
+            transaction.commit();
+        } catch (RollbackException e) {
+            return false;
+        }
+        setAvailable(em, true);
+        return true;
+    }
+
+    private void setAvailable(EntityManager em, boolean available) {
+        em.clear();
+        EntityTransaction transaction = em.getTransaction();
+        transaction.begin();
+        em.find(Car.class, carId).setIsAvailable(available);
+        transaction.commit();
+    }
+}
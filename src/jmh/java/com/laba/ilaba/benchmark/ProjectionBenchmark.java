@@ -0,0 +1,102 @@
+package com.laba.ilaba.benchmark;
+
+import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.dto.UserResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The list endpoints' repository work, as it was (managed entities copied into DTOs, with the order's
+ * car and user loaded lazily) and as projections. The build runs JMH with the {@code gc} profiler, so
+ * {@code gc.alloc.rate.norm} gives bytes allocated per call; divide time and allocation by the table
+ * sizes for per-row figures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open("benchmark-projection", Map.of());
+        em = emf.createEntityManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public List<CarResponse> carsAsEntities() {
+        List<CarResponse> cars = em.createNamedQuery(Car.FIND_ALL, Car.class).getResultList().stream()
+                .map(CarResponse::fromEntity)
+                .collect(Collectors.toList());
+        em.clear();
+        return cars;
+    }
+
+    @Benchmark
+    public List<CarResponse> carsAsProjection() {
+        return em.createNamedQuery(Car.FIND_ALL_RESPONSES, CarResponse.class).getResultList();
+    }
+
+    @Benchmark
+    public List<UserResponse> usersAsEntities() {
+        List<UserResponse> users = em.createNamedQuery(User.FIND_ALL, User.class).getResultList().stream()
+                .map(UserResponse::fromEntity)
+                .collect(Collectors.toList());
+        em.clear();
+        return users;
+    }
+
+    @Benchmark
+    public List<UserResponse> usersAsProjection() {
+        return em.createNamedQuery(User.FIND_ALL_RESPONSES, UserResponse.class).getResultList();
+    }
+
+    @Benchmark
+    public List<OrderResponse> ordersAsEntities() {
+        List<OrderResponse> orders = em.createNamedQuery(Order.FIND_ALL, Order.class).getResultList().stream()
+                .map(OrderResponse::fromEntity)
+                .collect(Collectors.toList());
+        em.clear();
+        return orders;
+    }
+
+    @Benchmark
+    public List<OrderResponse> ordersAsProjection() {
+        return em.createNamedQuery(Order.FIND_ALL_ROWS, Object[].class).getResultList().stream()
+                .map(OrderResponse::fromRow)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.laba.ilaba.benchmark;
+
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.eclipse.persistence.config.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query latency of the repository read queries against a real PostgreSQL, comparing
+ * {@code before} (inline JPQL, no statement cache, driver never server-prepares) with {@code after}
+ * (named queries, EclipseLink statement cache, server-side prepared statements from the first call).
+ * The query results cache is bypassed so every call reaches the database.
+ * <p>
+ * Run with {@code ./gradlew jmh -Dilaba.bench.db-url=jdbc:postgresql://host:5432/db}; the schema must exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryLatencyBenchmark {
+
+    @Param({"before", "after"})
+    public String configuration;
+
+    private EntityManagerFactory emf;
+
+    private EntityManager em;
+
+    private boolean named;
+
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        named = "after".equals(configuration);
+        String url = BenchmarkDatabase.url();
+        emf = BenchmarkDatabase.open("benchmark-" + configuration, Map.of(
+                PersistenceUnitProperties.JDBC_URL, url + (url.contains("?") ? "&" : "?") + "prepareThreshold=" + (named ? 1 : 0),
+                PersistenceUnitProperties.CACHE_STATEMENTS, String.valueOf(named)));
+        em = emf.createEntityManager();
+        List<User> users = em.createQuery("SELECT u FROM User u", User.class).setMaxResults(1).getResultList();
+        user = users.isEmpty() ? new User() : users.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public List<Car> findAvailableCars() {
+        List<Car> cars = (named
+                ? em.createNamedQuery(Car.FIND_AVAILABLE, Car.class)
+                : em.createQuery("SELECT c FROM Car c WHERE c.isAvailable = true", Car.class))
+                .setHint(QueryHints.QUERY_RESULTS_CACHE, HintValues.FALSE)
+                .getResultList();
+        em.clear();
+        return cars;
+    }
+
+    @Benchmark
+    public List<User> findUserByEmail() {
+        List<User> users = (named
+                ? em.createNamedQuery(User.FIND_BY_EMAIL, User.class)
+                : em.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class))
+                .setParameter("email", user.getEmail())
+                .setHint(QueryHints.QUERY_RESULTS_CACHE, HintValues.FALSE)
+                .getResultList();
+        em.clear();
+        return users;
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByUser() {
+        List<Order> orders = (named
+                ? em.createNamedQuery(Order.FIND_BY_USER, Order.class)
+                : em.createQuery("SELECT o FROM Order o WHERE o.userDto = :user", Order.class))
+                .setParameter("user", user)
+                .getResultList();
+        em.clear();
+        return orders;
+    }
+
+    @Benchmark
+    public Car findCarById() {
+        Car car = em.find(Car.class, 1L);
+        em.clear();
+        return car;
+    }
+}
@@ -0,0 +1,64 @@
+package com.laba.ilaba.benchmark;
+
+import com.laba.ilaba.cache.SuggestIndex;
+import com.laba.ilaba.dto.CarSuggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SuggestIndex} lookups over a synthetic fleet with one distinct model per ten cars, no database
+ * involved. Sample-time mode, so the report carries the p99 next to the mean; the one-letter query has
+ * the widest prefix range and is the worst case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    private static final String[] MAKES = {"Audi", "BMW", "Ford", "Kia", "Skoda", "Toyota", "Volvo"};
+
+    @Param({"100000"})
+    public int cars;
+
+    @Param({"t", "to", "toyota c", "model 12"})
+    public String query;
+
+    private SuggestIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] makes = new String[cars];
+        String[] models = new String[cars];
+        boolean[] available = new boolean[cars];
+        for (int i = 0; i < cars; i++) {
+            makes[i] = MAKES[random.nextInt(MAKES.length)];
+            models[i] = "Model " + random.nextInt(cars / 10);
+            available[i] = random.nextInt(3) > 0;
+        }
+        index = new SuggestIndex();
+        index.rebuild(cars, i -> makes[i], i -> models[i], i -> available[i]);
+    }
+
+    @Benchmark
+    public List<CarSuggestion> suggest() {
+        return index.suggest(query, 10);
+    }
+}
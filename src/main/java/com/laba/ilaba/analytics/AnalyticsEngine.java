@@ -0,0 +1,451 @@
+package com.laba.ilaba.analytics;
+
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.dto.AnalyticsQueryRequest;
+import com.laba.ilaba.dto.AnalyticsQueryResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import com.laba.ilaba.service.PricingEngine;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Answers ad-hoc questions over the whole order history from an in-memory {@link OrderColumns}
+ * snapshot instead of the database. The snapshot is loaded from the read replica in the background
+ * at startup and replaced every {@code ilaba.analytics.refresh-interval-minutes}, so answers can be
+ * that much behind.
+ * <p>
+ * A query compiles its filters and grouping into predicates and key functions over the primitive
+ * columns, then scans the rows with a fork/join task tree on a pool of
+ * {@code ilaba.analytics.parallelism} threads. Every leaf accumulates counts, days and amounts for
+ * each group into one flat {@code long[]}; leaves are summed on the way back up. Nothing is allocated
+ * per row.
+ * <p>
+ * Rejected orders are detached from their car, so they fall into the {@code (none)} group when grouping
+ * by car, make or year.
+ */
+@ApplicationScoped
+@Slf4j
+public class AnalyticsEngine {
+
+    static final int MAX_GROUPS = 10_000;
+    static final int LEAF_ROWS = 1 << 16;
+    private static final BigDecimal DEFAULT_BAND_WIDTH = BigDecimal.valueOf(100);
+    private static final String NO_CAR_KEY = "(none)";
+
+    private static final int COUNT = 0;
+    private static final int DAYS = 1;
+    private static final int PRICE = 2;
+    private static final int REVENUE = 3;
+    private static final int REJECTED = 4;
+    private static final int STRIDE = 5;
+
+    private static final Order.Status[] STATUSES = Order.Status.values();
+    private static final boolean[] REVENUE_STATUS = new boolean[STATUSES.length];
+
+    static {
+        REVENUE_STATUS[Order.Status.PAID.ordinal()] = true;
+        REVENUE_STATUS[Order.Status.ACTIVE.ordinal()] = true;
+        REVENUE_STATUS[Order.Status.COMPLETED.ordinal()] = true;
+    }
+
+    private final int fetchSize = Integer.getInteger("ilaba.analytics.fetch-size", 10_000);
+    private final long refreshIntervalMinutes = Long.getLong("ilaba.analytics.refresh-interval-minutes", 30);
+
+    private final ForkJoinPool pool;
+    private volatile OrderColumns snapshot;
+
+    @Inject
+    @ReadOnly
+    private EntityManagerFactory readOnlyEntityManagerFactory;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    public AnalyticsEngine() {
+        this(Integer.getInteger("ilaba.analytics.parallelism", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * For benchmarks and tests that query their own {@link OrderColumns}.
+     */
+    public AnalyticsEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        scheduler.scheduleWithFixedDelay("analytics-snapshot", this::reload,
+                0, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Loads a fresh snapshot of all cars and orders and swaps it in.
+     */
+    public void reload() {
+        long start = System.nanoTime();
+        OrderColumns.Builder builder = OrderColumns.builder();
+        EntityManager em = readOnlyEntityManagerFactory.createEntityManager();
+        try {
+            for (Car car : carRepository.findAll(em)) {
+                builder.addCar(car.getId(), car.getMake(), car.getYear(), PricingEngine.toMinor(car.getPricePerDay()));
+            }
+            em.clear();
+            orderRepository.streamAnalyticsRows(em, fetchSize, row -> {
+                long carId = row.getLong(1);
+                Long car = row.wasNull() ? null : carId;
+                BigDecimal total = row.getBigDecimal(4);
+                builder.addOrder(car, row.getObject(2, LocalDate.class), row.getObject(3, LocalDate.class),
+                        total != null ? PricingEngine.toMinor(total) : 0, Order.Status.valueOf(row.getString(5)));
+            });
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Could not load analytics snapshot", e);
+        } finally {
+            em.close();
+        }
+        OrderColumns columns = builder.build();
+        snapshot = columns;
+        log.info("Analytics snapshot loaded: {} orders, {} cars in {} ms", columns.size(), columns.carCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public AnalyticsQueryResponse query(AnalyticsQueryRequest request) {
+        OrderColumns columns = snapshot;
+        if (columns == null) {
+            throw new ServiceUnavailableException("Analytics snapshot is still loading");
+        }
+        return query(columns, request);
+    }
+
+    public AnalyticsQueryResponse query(OrderColumns columns, AnalyticsQueryRequest request) {
+        long start = System.nanoTime();
+        IntPredicate[] filters = compileFilters(columns, request.getFilters());
+        Grouping grouping = grouping(columns, request);
+        long[] totals = pool.invoke(new ScanTask(columns, filters, grouping, 0, columns.size()));
+
+        List<AnalyticsQueryResponse.Group> groups = new ArrayList<>();
+        long matched = 0;
+        for (int group = 0; group < grouping.count(); group++) {
+            int base = group * STRIDE;
+            long count = totals[base + COUNT];
+            if (count == 0) {
+                continue;
+            }
+            matched += count;
+            groups.add(new AnalyticsQueryResponse.Group(grouping.label().apply(group), count,
+                    (double) totals[base + DAYS] / count,
+                    PricingEngine.fromMinor(Math.round((double) totals[base + PRICE] / count)),
+                    PricingEngine.fromMinor(totals[base + REVENUE]),
+                    (double) totals[base + REJECTED] / count));
+        }
+        if (grouping.sortByKey()) {
+            groups.sort(Comparator.comparing(AnalyticsQueryResponse.Group::getKey));
+        }
+        return new AnalyticsQueryResponse(columns.size(), matched, (System.nanoTime() - start) / 1_000,
+                Instant.ofEpochMilli(columns.loadedAtMillis), grouping.name(), groups);
+    }
+
+    private static IntPredicate[] compileFilters(OrderColumns columns, List<AnalyticsQueryRequest.Filter> filters) {
+        if (filters == null) {
+            return new IntPredicate[0];
+        }
+        IntPredicate[] compiled = new IntPredicate[filters.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            AnalyticsQueryRequest.Filter filter = filters.get(i);
+            try {
+                compiled[i] = compileFilter(columns, filter);
+            } catch (BadRequestException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid value in filter on " + filter.getField());
+            }
+        }
+        return compiled;
+    }
+
+    private static IntPredicate compileFilter(OrderColumns c, AnalyticsQueryRequest.Filter filter) {
+        String field = String.valueOf(filter.getField());
+        String op = filter.getOp() != null ? filter.getOp().toLowerCase(Locale.ROOT) : "eq";
+        int[] car = c.car;
+        switch (field) {
+            case "status" -> {
+                boolean[] allowed = new boolean[STATUSES.length];
+                for (String value : values(field, op, filter)) {
+                    allowed[Order.Status.valueOf(value.toUpperCase(Locale.ROOT)).ordinal()] = true;
+                }
+                byte[] status = c.status;
+                return row -> allowed[status[row]];
+            }
+            case "make" -> {
+                boolean[] allowed = new boolean[c.makes.length];
+                for (String value : values(field, op, filter)) {
+                    for (int i = 0; i < c.makes.length; i++) {
+                        allowed[i] |= c.makes[i].equalsIgnoreCase(value);
+                    }
+                }
+                int[] carMake = c.carMake;
+                return row -> car[row] != OrderColumns.NO_CAR && allowed[carMake[car[row]]];
+            }
+            case "carId" -> {
+                boolean[] allowed = new boolean[c.carIds.length];
+                for (String value : values(field, op, filter)) {
+                    long id = Long.parseLong(value);
+                    for (int i = 0; i < c.carIds.length; i++) {
+                        allowed[i] |= c.carIds[i] == id;
+                    }
+                }
+                return row -> car[row] != OrderColumns.NO_CAR && allowed[car[row]];
+            }
+            case "startDate" -> {
+                long[] range = range(field, op, LocalDate.parse(value(field, filter)).toEpochDay());
+                int[] startDay = c.startDay;
+                return row -> startDay[row] >= range[0] && startDay[row] <= range[1];
+            }
+            case "endDate" -> {
+                long[] range = range(field, op, LocalDate.parse(value(field, filter)).toEpochDay());
+                int[] endDay = c.endDay;
+                return row -> endDay[row] >= range[0] && endDay[row] <= range[1];
+            }
+            case "days" -> {
+                long[] range = range(field, op, Long.parseLong(value(field, filter)));
+                return row -> c.days(row) >= range[0] && c.days(row) <= range[1];
+            }
+            case "totalPrice" -> {
+                long[] range = range(field, op, PricingEngine.toMinor(new BigDecimal(value(field, filter))));
+                long[] priceMinor = c.priceMinor;
+                return row -> priceMinor[row] >= range[0] && priceMinor[row] <= range[1];
+            }
+            case "pricePerDay" -> {
+                long[] range = range(field, op, PricingEngine.toMinor(new BigDecimal(value(field, filter))));
+                long[] carPrice = c.carPricePerDayMinor;
+                return row -> car[row] != OrderColumns.NO_CAR
+                        && carPrice[car[row]] >= range[0] && carPrice[car[row]] <= range[1];
+            }
+            case "year" -> {
+                long[] range = range(field, op, Long.parseLong(value(field, filter)));
+                int[] carYear = c.carYear;
+                return row -> car[row] != OrderColumns.NO_CAR
+                        && carYear[car[row]] >= range[0] && carYear[car[row]] <= range[1];
+            }
+            default -> throw new BadRequestException("Unknown analytics field: " + field);
+        }
+    }
+
+    private static List<String> values(String field, String op, AnalyticsQueryRequest.Filter filter) {
+        if (op.equals("eq")) {
+            return List.of(value(field, filter));
+        }
+        if (op.equals("in") && filter.getValues() != null && !filter.getValues().isEmpty()) {
+            return filter.getValues();
+        }
+        throw new BadRequestException("Filter on " + field + " needs op eq with a value or in with values");
+    }
+
+    private static String value(String field, AnalyticsQueryRequest.Filter filter) {
+        if (filter.getValue() == null) {
+            throw new BadRequestException("Filter on " + field + " needs a value");
+        }
+        return filter.getValue();
+    }
+
+    /**
+     * Inclusive {@code [min, max]} bounds matching {@code op value}.
+     */
+    private static long[] range(String field, String op, long value) {
+        return switch (op) {
+            case "eq" -> new long[]{value, value};
+            case "gt" -> new long[]{value + 1, Long.MAX_VALUE};
+            case "gte" -> new long[]{value, Long.MAX_VALUE};
+            case "lt" -> new long[]{Long.MIN_VALUE, value - 1};
+            case "lte" -> new long[]{Long.MIN_VALUE, value};
+            default -> throw new BadRequestException("Unsupported op for " + field + ": " + op);
+        };
+    }
+
+    private static Grouping grouping(OrderColumns c, AnalyticsQueryRequest request) {
+        String name = request.getGroupBy() != null ? request.getGroupBy() : "none";
+        int[] car = c.car;
+        switch (name) {
+            case "none" -> {
+                return new Grouping(name, 1, row -> 0, group -> "all", false);
+            }
+            case "status" -> {
+                byte[] status = c.status;
+                return new Grouping(name, STATUSES.length, row -> status[row], group -> STATUSES[group].name(), false);
+            }
+            case "make" -> {
+                int none = c.makes.length;
+                int[] carMake = c.carMake;
+                return new Grouping(name, none + 1,
+                        row -> car[row] == OrderColumns.NO_CAR ? none : carMake[car[row]],
+                        group -> group == none ? NO_CAR_KEY : c.makes[group], true);
+            }
+            case "carId" -> {
+                int none = c.carIds.length;
+                return new Grouping(name, none + 1,
+                        row -> car[row] == OrderColumns.NO_CAR ? none : car[row],
+                        group -> group == none ? NO_CAR_KEY : String.valueOf(c.carIds[group]), false);
+            }
+            case "year" -> {
+                TreeSet<Integer> distinct = new TreeSet<>();
+                for (int year : c.carYear) {
+                    distinct.add(year);
+                }
+                Integer[] years = distinct.toArray(new Integer[0]);
+                int[] carGroup = new int[c.carYear.length];
+                for (int i = 0; i < carGroup.length; i++) {
+                    carGroup[i] = distinct.headSet(c.carYear[i]).size();
+                }
+                int none = years.length;
+                return new Grouping(name, none + 1,
+                        row -> car[row] == OrderColumns.NO_CAR ? none : carGroup[car[row]],
+                        group -> group == none ? NO_CAR_KEY : String.valueOf(years[group]), false);
+            }
+            case "startMonth" -> {
+                YearMonth first = YearMonth.from(LocalDate.ofEpochDay(c.minStartDay));
+                int[] monthOfDay = new int[c.maxStartDay - c.minStartDay + 1];
+                for (int i = 0; i < monthOfDay.length; i++) {
+                    YearMonth month = YearMonth.from(LocalDate.ofEpochDay(c.minStartDay + i));
+                    monthOfDay[i] = (month.getYear() - first.getYear()) * 12
+                            + month.getMonthValue() - first.getMonthValue();
+                }
+                int minStartDay = c.minStartDay;
+                int[] startDay = c.startDay;
+                return new Grouping(name, monthOfDay[monthOfDay.length - 1] + 1,
+                        row -> monthOfDay[startDay[row] - minStartDay],
+                        group -> first.plusMonths(group).toString(), false);
+            }
+            case "days" -> {
+                boolean capped = c.maxDays + 1 > MAX_GROUPS;
+                int count = Math.min(MAX_GROUPS, c.maxDays + 1);
+                return new Grouping(name, count, row -> Math.min(count - 1, c.days(row)),
+                        group -> capped && group == count - 1 ? group + "+" : String.valueOf(group), false);
+            }
+            case "priceBand" -> {
+                BigDecimal bandWidth = request.getBandWidth() != null ? request.getBandWidth() : DEFAULT_BAND_WIDTH;
+                long width = PricingEngine.toMinor(bandWidth);
+                if (width <= 0) {
+                    throw new BadRequestException("bandWidth must be positive");
+                }
+                boolean capped = c.maxPriceMinor / width + 1 > MAX_GROUPS;
+                int count = (int) Math.min(MAX_GROUPS, c.maxPriceMinor / width + 1);
+                long[] priceMinor = c.priceMinor;
+                return new Grouping(name, count, row -> (int) Math.min(count - 1, priceMinor[row] / width),
+                        group -> capped && group == count - 1
+                                ? PricingEngine.fromMinor(group * width) + "+"
+                                : PricingEngine.fromMinor(group * width) + "-" + PricingEngine.fromMinor((group + 1) * width),
+                        false);
+            }
+            default -> throw new BadRequestException("Unknown analytics groupBy: " + name);
+        }
+    }
+
+    /**
+     * Maps a row to a dense group index in {@code [0, count)} and a group index to its key.
+     */
+    private record Grouping(String name, int count, IntUnaryOperator key, IntFunction<String> label,
+                            boolean sortByKey) {
+    }
+
+    private static final class ScanTask extends RecursiveTask<long[]> {
+
+        private final OrderColumns columns;
+        private final IntPredicate[] filters;
+        private final Grouping grouping;
+        private final int from;
+        private final int to;
+
+        private ScanTask(OrderColumns columns, IntPredicate[] filters, Grouping grouping, int from, int to) {
+            this.columns = columns;
+            this.filters = filters;
+            this.grouping = grouping;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_ROWS) {
+                return scan();
+            }
+            int middle = from + (to - from) / 2;
+            ScanTask left = new ScanTask(columns, filters, grouping, from, middle);
+            left.fork();
+            long[] totals = new ScanTask(columns, filters, grouping, middle, to).compute();
+            long[] other = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += other[i];
+            }
+            return totals;
+        }
+
+        private long[] scan() {
+            long[] totals = new long[grouping.count() * STRIDE];
+            IntUnaryOperator key = grouping.key();
+            long[] priceMinor = columns.priceMinor;
+            byte[] status = columns.status;
+            rows:
+            for (int row = from; row < to; row++) {
+                for (IntPredicate filter : filters) {
+                    if (!filter.test(row)) {
+                        continue rows;
+                    }
+                }
+                int base = key.applyAsInt(row) * STRIDE;
+                totals[base + COUNT]++;
+                totals[base + DAYS] += columns.days(row);
+                totals[base + PRICE] += priceMinor[row];
+                if (REVENUE_STATUS[status[row]]) {
+                    totals[base + REVENUE] += priceMinor[row];
+                }
+                if (status[row] == Order.Status.REJECTED.ordinal()) {
+                    totals[base + REJECTED]++;
+                }
+            }
+            return totals;
+        }
+    }
+}
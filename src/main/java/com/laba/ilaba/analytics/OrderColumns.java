@@ -0,0 +1,168 @@
+package com.laba.ilaba.analytics;
+
+import com.laba.ilaba.entity.Order;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-oriented copy of all orders and cars for {@link AnalyticsEngine}. Each order is a
+ * row index into parallel primitive arrays: start and end as epoch days, total price in minor units,
+ * status as its ordinal and the car as an index into the car columns ({@link #NO_CAR} for rejected
+ * orders, which are detached from their car, and for deleted cars). Makes are dictionary encoded.
+ */
+public final class OrderColumns {
+
+    public static final int NO_CAR = -1;
+
+    final int size;
+    final int[] startDay;
+    final int[] endDay;
+    final long[] priceMinor;
+    final byte[] status;
+    final int[] car;
+
+    final long[] carIds;
+    final int[] carMake;
+    final int[] carYear;
+    final long[] carPricePerDayMinor;
+    final String[] makes;
+
+    final int minStartDay;
+    final int maxStartDay;
+    final int maxDays;
+    final long maxPriceMinor;
+    final long loadedAtMillis;
+
+    private OrderColumns(Builder builder) {
+        size = builder.size;
+        startDay = Arrays.copyOf(builder.startDay, size);
+        endDay = Arrays.copyOf(builder.endDay, size);
+        priceMinor = Arrays.copyOf(builder.priceMinor, size);
+        status = Arrays.copyOf(builder.status, size);
+        car = Arrays.copyOf(builder.car, size);
+
+        int cars = builder.carIds.size();
+        carIds = new long[cars];
+        carMake = new int[cars];
+        carYear = new int[cars];
+        carPricePerDayMinor = new long[cars];
+        for (int i = 0; i < cars; i++) {
+            carIds[i] = builder.carIds.get(i);
+            carMake[i] = builder.carMake.get(i);
+            carYear[i] = builder.carYear.get(i);
+            carPricePerDayMinor[i] = builder.carPricePerDayMinor.get(i);
+        }
+        makes = builder.makes.toArray(new String[0]);
+
+        int minStart = Integer.MAX_VALUE;
+        int maxStart = Integer.MIN_VALUE;
+        int longest = 0;
+        long highest = 0;
+        for (int row = 0; row < size; row++) {
+            minStart = Math.min(minStart, startDay[row]);
+            maxStart = Math.max(maxStart, startDay[row]);
+            longest = Math.max(longest, days(row));
+            highest = Math.max(highest, priceMinor[row]);
+        }
+        minStartDay = size > 0 ? minStart : 0;
+        maxStartDay = size > 0 ? maxStart : 0;
+        maxDays = longest;
+        maxPriceMinor = highest;
+        loadedAtMillis = System.currentTimeMillis();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int carCount() {
+        return carIds.length;
+    }
+
+    /**
+     * Rental days of a row, counted like the pricing rules count them: a same-day rental is one day.
+     */
+    int days(int row) {
+        return Math.max(1, endDay[row] - startDay[row]);
+    }
+
+    /**
+     * Collects rows while the snapshot is loaded. Cars must be added before the orders that refer to them.
+     */
+    public static final class Builder {
+
+        private final Map<Long, Integer> carIndex = new HashMap<>();
+        private final Map<String, Integer> makeIndex = new HashMap<>();
+        private final List<Long> carIds = new ArrayList<>();
+        private final List<Integer> carMake = new ArrayList<>();
+        private final List<Integer> carYear = new ArrayList<>();
+        private final List<Long> carPricePerDayMinor = new ArrayList<>();
+        private final List<String> makes = new ArrayList<>();
+
+        private int size;
+        private int[] startDay = new int[1024];
+        private int[] endDay = new int[1024];
+        private long[] priceMinor = new long[1024];
+        private byte[] status = new byte[1024];
+        private int[] car = new int[1024];
+
+        private Builder() {
+        }
+
+        public Builder addCar(long id, String make, Integer year, long pricePerDayMinor) {
+            if (carIndex.putIfAbsent(id, carIds.size()) != null) {
+                return this;
+            }
+            String name = make != null ? make : "";
+            Integer code = makeIndex.get(name);
+            if (code == null) {
+                code = makes.size();
+                makeIndex.put(name, code);
+                makes.add(name);
+            }
+            carIds.add(id);
+            carMake.add(code);
+            carYear.add(year != null ? year : 0);
+            carPricePerDayMinor.add(pricePerDayMinor);
+            return this;
+        }
+
+        public Builder addOrder(Long carId, LocalDate startDate, LocalDate endDate, long totalMinor,
+                                Order.Status orderStatus) {
+            return addOrder(carId, (int) startDate.toEpochDay(), (int) endDate.toEpochDay(), totalMinor, orderStatus);
+        }
+
+        public Builder addOrder(Long carId, int startEpochDay, int endEpochDay, long totalMinor,
+                                Order.Status orderStatus) {
+            if (size == startDay.length) {
+                int capacity = size + (size >> 1);
+                startDay = Arrays.copyOf(startDay, capacity);
+                endDay = Arrays.copyOf(endDay, capacity);
+                priceMinor = Arrays.copyOf(priceMinor, capacity);
+                status = Arrays.copyOf(status, capacity);
+                car = Arrays.copyOf(car, capacity);
+            }
+            Integer index = carId != null ? carIndex.get(carId) : null;
+            startDay[size] = startEpochDay;
+            endDay[size] = endEpochDay;
+            priceMinor[size] = totalMinor;
+            status[size] = (byte) orderStatus.ordinal();
+            car[size] = index != null ? index : NO_CAR;
+            size++;
+            return this;
+        }
+
+        public OrderColumns build() {
+            return new OrderColumns(this);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.laba.ilaba.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and eviction counters per cache region. A region is either an entity cached in the
+ * shared cache (by simple class name) or a named query with a results cache.
+ * <p>
+ * A single instance is shared by the whole JVM because EclipseLink instantiates
+ * {@link CacheStatisticsListener} itself, outside of CDI.
+ */
+public final class CacheStatistics {
+
+    private static final CacheStatistics INSTANCE = new CacheStatistics();
+
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    private CacheStatistics() {
+    }
+
+    public static CacheStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    void recordLookup(String region) {
+        region(region).lookups.increment();
+    }
+
+    void recordDatabaseRead(String region) {
+        region(region).databaseReads.increment();
+    }
+
+    void recordEviction(String region) {
+        region(region).evictions.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        regions.forEach((name, region) -> {
+            long lookups = region.lookups.sum();
+            long misses = Math.min(lookups, region.databaseReads.sum());
+            Map<String, Object> counters = new LinkedHashMap<>();
+            counters.put("hits", lookups - misses);
+            counters.put("misses", misses);
+            counters.put("evictions", region.evictions.sum());
+            counters.put("hitRatio", lookups == 0 ? 0.0 : (double) (lookups - misses) / lookups);
+            snapshot.put(name, counters);
+        });
+        return snapshot;
+    }
+
+    private Region region(String name) {
+        return regions.computeIfAbsent(name, key -> new Region());
+    }
+
+    private static final class Region {
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder databaseReads = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+    }
+}
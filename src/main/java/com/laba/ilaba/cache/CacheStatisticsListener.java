@@ -0,0 +1,56 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import org.eclipse.persistence.internal.databaseaccess.DatasourceCall;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.queries.ReadObjectQuery;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.Set;
+
+/**
+ * Counts cache hits and misses for the cached regions. Every execution of a tracked query is a
+ * lookup; the ones that reach the database are misses. Registered through
+ * {@code eclipselink.session-event-listener} in {@code persistence.xml}.
+ */
+public class CacheStatisticsListener extends SessionEventAdapter {
+
+    private static final Set<Class<?>> CACHED_ENTITIES = Set.of(Car.class, User.class, Order.class);
+    private static final Set<String> CACHED_QUERIES = Set.of(Car.FIND_AVAILABLE, User.FIND_BY_EMAIL);
+
+    private final CacheStatistics statistics = CacheStatistics.getInstance();
+
+    @Override
+    public void preExecuteQuery(SessionEvent event) {
+        String region = regionOf(event.getQuery());
+        if (region != null) {
+            statistics.recordLookup(region);
+        }
+    }
+
+    @Override
+    public void preExecuteCall(SessionEvent event) {
+        if (event.getCall() instanceof DatasourceCall call) {
+            String region = regionOf(call.getQuery());
+            if (region != null) {
+                statistics.recordDatabaseRead(region);
+            }
+        }
+    }
+
+    private static String regionOf(DatabaseQuery query) {
+        if (query == null) {
+            return null;
+        }
+        if (query.getName() != null && CACHED_QUERIES.contains(query.getName())) {
+            return query.getName();
+        }
+        if (query instanceof ReadObjectQuery && CACHED_ENTITIES.contains(query.getReferenceClass())) {
+            return query.getReferenceClass().getSimpleName();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,650 @@
+package com.laba.ilaba.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-side copy of all cars for the catalog endpoints, kept as struct-of-arrays instead of entities:
+ * ids sorted ascending in a {@code long[]} with every other column at the same index, prices in
+ * minor units, availability in a {@link BitSet}, the current order id as a {@code long} and make and
+ * model as codes into a dictionary of pre-quoted JSON strings. The dictionary only holds makes and
+ * models, so it stays small however many bookings go through; the rare current order id that is not a
+ * number is kept per car on the side. A car costs about 36 bytes here, against roughly 300 for a
+ * cached {@link Car} with its boxed fields, strings and identity map entry.
+ * <p>
+ * The catalog is loaded from the read replica at startup and then kept current by
+ * {@link EntityCacheManager}, which hands it every car written on this node after commit and asks it to
+ * reload cars invalidated by other nodes. It renders the same JSON as {@code CarResponse} directly from
+ * the columns, and feeds every change to the {@link SuggestIndex}.
+ * <p>
+ * With {@code ilaba.catalog.persist-dir} set, the catalog also survives restarts without a full scan:
+ * every {@code ilaba.catalog.snapshot-interval-minutes} it catches up with the change log and writes a
+ * snapshot stamped with the last change seq it has applied, and every put and removal in between is
+ * appended to a WAL (see {@link CatalogPersistence}). On boot it maps the snapshot, replays the WAL and
+ * starts serving, then reloads only the cars the change log lists after the snapshot's seq.
+ */
+@ApplicationScoped
+@Slf4j
+public class CarCatalog {
+
+    static final int NO_CODE = -1;
+    static final long NO_ORDER = Long.MIN_VALUE;
+    // SerializedString, its String and char array, the code map entry and boxed code.
+    private static final int DICTIONARY_ENTRY_OVERHEAD = 120;
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final int IN_CHUNK_SIZE = 500;
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString MAKE = new SerializedString("make");
+    private static final SerializableString MODEL = new SerializedString("model");
+    private static final SerializableString YEAR = new SerializedString("year");
+    private static final SerializableString PRICE_PER_DAY = new SerializedString("pricePerDay");
+    private static final SerializableString IS_AVAILABLE = new SerializedString("isAvailable");
+    private static final SerializableString CURRENT_ORDER_ID = new SerializedString("currentOrderId");
+    private static final SerializableString[] ABSENT = {
+            new SerializedString("ownerId"), new SerializedString("ownerEmail"),
+            new SerializedString("imageUrl"), new SerializedString("description")};
+
+    private final String persistDir = System.getProperty("ilaba.catalog.persist-dir");
+    private final long snapshotIntervalMinutes = Long.getLong("ilaba.catalog.snapshot-interval-minutes", 5);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] ids = new long[0];
+    private int[] years = new int[0];
+    private long[] priceMinor = new long[0];
+    private int[] makes = new int[0];
+    private int[] models = new int[0];
+    private long[] currentOrders = new long[0];
+    private Map<Long, String> otherCurrentOrders = new HashMap<>();
+    private BitSet available = new BitSet();
+    private List<SerializedString> dictionary = new ArrayList<>();
+    private Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+    private volatile boolean ready;
+    private volatile long syncedSeq;
+    private CatalogPersistence persistence;
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    @ReadOnly
+    private EntityManagerFactory readOnlyEntityManagerFactory;
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    @Inject
+    private SuggestIndex suggestIndex;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (persistDir != null) {
+            try {
+                persistence = new CatalogPersistence(Path.of(persistDir));
+            } catch (IOException e) {
+                log.error("Cannot use {} for the car catalog snapshot", persistDir, e);
+            }
+        }
+        if (restore()) {
+            try {
+                catchUp();
+            } catch (RuntimeException e) {
+                log.error("Could not catch the car catalog up, serving the restored state until the next checkpoint", e);
+            }
+        } else {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Could not load the car catalog, serving cars from the database", e);
+            }
+        }
+        if (persistence != null) {
+            scheduler.scheduleWithFixedDelay("car-catalog-snapshot", this::checkpoint,
+                    snapshotIntervalMinutes, snapshotIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (persistence != null) {
+            lock.writeLock().lock();
+            try {
+                persistence.flush();
+                persistence.close();
+            } catch (IOException e) {
+                log.warn("Could not close the car catalog WAL", e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the whole catalog with the cars currently in the database.
+     */
+    public void load() {
+        long start = System.nanoTime();
+        List<Car> cars;
+        long seq;
+        EntityManager em = readOnlyEntityManagerFactory.createEntityManager();
+        try {
+            // Taken before the cars, so every change after it is either in the cars read or caught up later.
+            seq = changeLogRepository.findMaxSeq(em);
+            cars = em.createNamedQuery(Car.FIND_ALL, Car.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+        cars.sort(Comparator.comparing(Car::getId));
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            ids = new long[cars.size()];
+            years = new int[cars.size()];
+            priceMinor = new long[cars.size()];
+            makes = new int[cars.size()];
+            models = new int[cars.size()];
+            currentOrders = new long[cars.size()];
+            otherCurrentOrders = new HashMap<>();
+            available = new BitSet(cars.size());
+            dictionary = new ArrayList<>();
+            dictionaryCodes = new HashMap<>();
+            for (Car car : cars) {
+                ids[size] = car.getId();
+                set(size, car);
+                size++;
+            }
+            rebuildSuggestions();
+            syncedSeq = seq;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Car catalog loaded: {} cars in {} ms", cars.size(), (System.nanoTime() - start) / 1_000_000);
+        if (persistence != null) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Restores the catalog from the snapshot and WAL in {@code ilaba.catalog.persist-dir}.
+     *
+     * @return false if persistence is off or there is no usable snapshot
+     */
+    boolean restore() {
+        if (persistence == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            CatalogPersistence.Snapshot snapshot = persistence.readSnapshot();
+            if (snapshot == null) {
+                return false;
+            }
+            size = snapshot.size();
+            ids = snapshot.ids();
+            years = snapshot.years();
+            priceMinor = snapshot.priceMinor();
+            makes = snapshot.makes();
+            models = snapshot.models();
+            currentOrders = snapshot.currentOrders();
+            otherCurrentOrders = new HashMap<>(snapshot.otherCurrentOrders());
+            available = snapshot.available();
+            dictionary = new ArrayList<>(snapshot.dictionary().size());
+            dictionaryCodes = new HashMap<>();
+            for (String value : snapshot.dictionary()) {
+                dictionaryCodes.put(value, dictionary.size());
+                dictionary.add(new SerializedString(value));
+            }
+            syncedSeq = snapshot.syncedSeq();
+            rebuildSuggestions();
+            int replayed = persistence.replay(new CatalogPersistence.Visitor() {
+                @Override
+                public void put(long id, int year, long price, boolean isAvailable, String make, String model,
+                                String currentOrder) {
+                    upsert(id, year, price, isAvailable, make, model, currentOrder);
+                }
+
+                @Override
+                public void remove(long id) {
+                    removeId(id);
+                }
+            });
+            ready = true;
+            log.info("Car catalog restored at change {}: {} cars, {} WAL records in {} ms", syncedSeq, size,
+                    replayed, (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore the car catalog snapshot, loading from the database", e);
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads every car the change log lists after {@link #syncedSeq}, reading the log from the primary.
+     */
+    public void catchUp() {
+        long seq = syncedSeq;
+        Set<Long> carIds = new LinkedHashSet<>();
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            List<ChangeLogEntry> changes;
+            do {
+                changes = changeLogRepository.findSince(em, seq, CATCH_UP_BATCH);
+                for (ChangeLogEntry change : changes) {
+                    if (change.getEntityType() == ChangeLogEntry.EntityType.CAR) {
+                        carIds.add(change.getEntityId());
+                    }
+                    seq = change.getSeq();
+                }
+            } while (changes.size() == CATCH_UP_BATCH);
+        } finally {
+            em.close();
+        }
+        refresh(carIds);
+        syncedSeq = seq;
+        if (!carIds.isEmpty()) {
+            log.info("Car catalog caught up to change {}: {} cars reloaded", seq, carIds.size());
+        }
+    }
+
+    /**
+     * Catches up with the change log and writes a snapshot at the reached seq, which empties the WAL.
+     */
+    public void checkpoint() {
+        if (persistence == null || !ready) {
+            return;
+        }
+        catchUp();
+        writeSnapshot();
+    }
+
+    public void put(Car car) {
+        putAll(List.of(car));
+    }
+
+    public void putAll(Collection<Car> cars) {
+        lock.writeLock().lock();
+        try {
+            for (Car car : cars) {
+                int year = car.getYear() != null ? car.getYear() : NO_YEAR;
+                long price = toMinor(car.getPricePerDay());
+                boolean isAvailable = Boolean.TRUE.equals(car.getIsAvailable());
+                upsert(car.getId(), year, price, isAvailable, car.getMake(), car.getModel(), car.getCurrentOrderId());
+                if (persistence != null) {
+                    persistence.appendPut(car.getId(), year, price, isAvailable, car.getMake(), car.getModel(),
+                            car.getCurrentOrderId());
+                }
+            }
+            flushWal();
+        } catch (IOException e) {
+            log.warn("Could not append to the car catalog WAL", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeId(id);
+            if (persistence != null) {
+                persistence.appendRemove(id);
+            }
+            flushWal();
+        } catch (IOException e) {
+            log.warn("Could not append to the car catalog WAL", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the given cars from the primary, for writes whose new state is not at hand; cars that no
+     * longer exist are removed.
+     */
+    public void refresh(Collection<Long> carIds) {
+        if (carIds.isEmpty()) {
+            return;
+        }
+        List<Long> idList = new ArrayList<>(carIds);
+        List<Car> cars = new ArrayList<>(idList.size());
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            for (int from = 0; from < idList.size(); from += IN_CHUNK_SIZE) {
+                cars.addAll(em.createNamedQuery(Car.FIND_BY_IDS, Car.class)
+                        .setParameter("ids", idList.subList(from, Math.min(from + IN_CHUNK_SIZE, idList.size())))
+                        .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                        .getResultList());
+            }
+        } finally {
+            em.close();
+        }
+        Set<Long> gone = new HashSet<>(idList);
+        cars.forEach(car -> gone.remove(car.getId()));
+        putAll(cars);
+        gone.forEach(this::remove);
+    }
+
+    /**
+     * JSON array of all cars, or of the available ones only.
+     */
+    public byte[] renderAll(boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(2, size * 160));
+            try (JsonGenerator generator = JSON.createGenerator(out)) {
+                generator.writeStartArray();
+                for (int index = 0; index < size; index++) {
+                    if (!availableOnly || available.get(index)) {
+                        write(generator, index);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * JSON object of one car, or {@code null} if it is not in the catalog.
+     */
+    public byte[] render(long id) {
+        lock.readLock().lock();
+        try {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(192);
+            try (JsonGenerator generator = JSON.createGenerator(out)) {
+                write(generator, index);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> statistics() {
+        lock.readLock().lock();
+        try {
+            long columnBytes = (long) ids.length * (Long.BYTES + Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + Long.BYTES)
+                    + available.size() / 8;
+            long dictionaryBytes = 0;
+            for (SerializedString value : dictionary) {
+                dictionaryBytes += DICTIONARY_ENTRY_OVERHEAD + 2L * value.getValue().length();
+            }
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("ready", ready);
+            statistics.put("syncedSeq", syncedSeq);
+            statistics.put("persistent", persistence != null);
+            statistics.put("cars", size);
+            statistics.put("capacity", ids.length);
+            statistics.put("dictionaryEntries", dictionary.size());
+            statistics.put("otherCurrentOrders", otherCurrentOrders.size());
+            statistics.put("columnBytes", columnBytes);
+            statistics.put("dictionaryBytes", dictionaryBytes);
+            statistics.put("bytesPerCar", size > 0 ? (columnBytes + dictionaryBytes) / size : 0);
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(JsonGenerator generator, int index) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(ids[index]);
+        generator.writeFieldName(MAKE);
+        writeCode(generator, makes[index]);
+        generator.writeFieldName(MODEL);
+        writeCode(generator, models[index]);
+        generator.writeFieldName(YEAR);
+        if (years[index] == NO_YEAR) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(years[index]);
+        }
+        generator.writeFieldName(PRICE_PER_DAY);
+        generator.writeNumber(BigDecimal.valueOf(priceMinor[index], 2));
+        generator.writeFieldName(IS_AVAILABLE);
+        generator.writeBoolean(available.get(index));
+        generator.writeFieldName(CURRENT_ORDER_ID);
+        if (currentOrders[index] != NO_ORDER) {
+            generator.writeString(Long.toString(currentOrders[index]));
+        } else {
+            generator.writeString(otherCurrentOrders.get(ids[index]));
+        }
+        for (SerializableString field : ABSENT) {
+            generator.writeFieldName(field);
+            generator.writeNull();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeCode(JsonGenerator generator, int code) throws IOException {
+        if (code == NO_CODE) {
+            generator.writeNull();
+        } else {
+            generator.writeString(dictionary.get(code));
+        }
+    }
+
+    private void set(int index, Car car) {
+        set(index, car.getYear() != null ? car.getYear() : NO_YEAR, toMinor(car.getPricePerDay()),
+                Boolean.TRUE.equals(car.getIsAvailable()), car.getMake(), car.getModel(), car.getCurrentOrderId());
+    }
+
+    private void set(int index, int year, long price, boolean isAvailable, String make, String model,
+                     String currentOrder) {
+        years[index] = year;
+        priceMinor[index] = price;
+        makes[index] = code(make);
+        models[index] = code(model);
+        currentOrders[index] = orderId(ids[index], currentOrder);
+        available.set(index, isAvailable);
+    }
+
+    private void upsert(long id, int year, long price, boolean isAvailable, String make, String model,
+                        String currentOrder) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        String oldMake = null;
+        String oldModel = null;
+        boolean wasAvailable = false;
+        if (index < 0) {
+            index = -index - 1;
+            insertAt(index, id);
+        } else {
+            oldMake = value(makes[index]);
+            oldModel = value(models[index]);
+            wasAvailable = available.get(index);
+        }
+        set(index, year, price, isAvailable, make, model, currentOrder);
+        suggestIndex.carChanged(oldMake, oldModel, wasAvailable, make, model, isAvailable);
+    }
+
+    private void removeId(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            suggestIndex.carRemoved(value(makes[index]), value(models[index]), available.get(index));
+            removeAt(index);
+        }
+    }
+
+    private void rebuildSuggestions() {
+        suggestIndex.rebuild(size, index -> value(makes[index]), index -> value(models[index]), available::get);
+    }
+
+    private void flushWal() throws IOException {
+        if (persistence != null) {
+            persistence.flush();
+        }
+    }
+
+    /**
+     * Writes the columns as they are now, under the read lock so no put can slip between the snapshot
+     * and emptying the WAL. A failed write only costs restart time: the catalog in memory is unaffected,
+     * and the previous snapshot and the WAL stay in place for a restore, so it is logged, not thrown.
+     */
+    private void writeSnapshot() {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            List<String> values = new ArrayList<>(dictionary.size());
+            dictionary.forEach(value -> values.add(value.getValue()));
+            persistence.writeSnapshot(new CatalogPersistence.Snapshot(syncedSeq, size, ids, years, priceMinor,
+                    makes, models, currentOrders, new HashMap<>(otherCurrentOrders), available, values));
+            persistence.truncateWal();
+        } catch (IOException e) {
+            log.warn("Could not write the car catalog snapshot at change {}, keeping the previous one and the WAL",
+                    syncedSeq, e);
+            return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.info("Car catalog snapshot written at change {}: {} cars in {} ms", syncedSeq, size,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+
+    /**
+     * The current order id as a number, or {@link #NO_ORDER} with a non-numeric one kept aside.
+     */
+    private long orderId(long carId, String currentOrder) {
+        otherCurrentOrders.remove(carId);
+        if (currentOrder == null) {
+            return NO_ORDER;
+        }
+        try {
+            long orderId = Long.parseLong(currentOrder);
+            if (orderId != NO_ORDER && Long.toString(orderId).equals(currentOrder)) {
+                return orderId;
+            }
+        } catch (NumberFormatException e) {
+            // kept aside below
+        }
+        otherCurrentOrders.put(carId, currentOrder);
+        return NO_ORDER;
+    }
+
+    private String value(int code) {
+        return code == NO_CODE ? null : dictionary.get(code).getValue();
+    }
+
+    private int code(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = dictionaryCodes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(new SerializedString(value));
+            dictionaryCodes.put(value, code);
+        }
+        return code;
+    }
+
+    private void insertAt(int index, long id) {
+        if (size == ids.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            years = Arrays.copyOf(years, capacity);
+            priceMinor = Arrays.copyOf(priceMinor, capacity);
+            makes = Arrays.copyOf(makes, capacity);
+            models = Arrays.copyOf(models, capacity);
+            currentOrders = Arrays.copyOf(currentOrders, capacity);
+        }
+        int tail = size - index;
+        System.arraycopy(ids, index, ids, index + 1, tail);
+        System.arraycopy(years, index, years, index + 1, tail);
+        System.arraycopy(priceMinor, index, priceMinor, index + 1, tail);
+        System.arraycopy(makes, index, makes, index + 1, tail);
+        System.arraycopy(models, index, models, index + 1, tail);
+        System.arraycopy(currentOrders, index, currentOrders, index + 1, tail);
+        for (int i = size; i > index; i--) {
+            available.set(i, available.get(i - 1));
+        }
+        ids[index] = id;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        otherCurrentOrders.remove(ids[index]);
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(years, index + 1, years, index, tail);
+        System.arraycopy(priceMinor, index + 1, priceMinor, index, tail);
+        System.arraycopy(makes, index + 1, makes, index, tail);
+        System.arraycopy(models, index + 1, models, index, tail);
+        System.arraycopy(currentOrders, index + 1, currentOrders, index, tail);
+        for (int i = index; i < size - 1; i++) {
+            available.set(i, available.get(i + 1));
+        }
+        available.clear(size - 1);
+        size--;
+    }
+}
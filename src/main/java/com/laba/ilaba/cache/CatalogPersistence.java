@@ -0,0 +1,323 @@
+package com.laba.ilaba.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk form of the {@link CarCatalog}: a binary snapshot of its columns, written through a memory
+ * mapping and swapped in atomically, and a write-ahead log of every car put or removed since.
+ * <p>
+ * Snapshot layout, big-endian: magic, version, the change log seq the snapshot is synced to, the car
+ * count and the dictionary size; the dictionary as length-prefixed UTF-8; the id, year, price, make,
+ * model and current order columns; the non-numeric current orders as a count and car id, UTF-8 pairs;
+ * the availability words; a CRC32 of everything before it.
+ * <p>
+ * WAL records are {@code [length][crc32][payload]}. They are not forced to disk: the change log is the
+ * source of truth and {@link CarCatalog#catchUp()} repairs anything lost, so replay just stops at the
+ * first torn or corrupt record.
+ */
+final class CatalogPersistence implements Closeable {
+
+    private static final int MAGIC = 0x494c4354;
+    private static final int VERSION = 2;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private final Path snapshotFile;
+    private final Path walFile;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+    private FileChannel wal;
+
+    CatalogPersistence(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("car-catalog.snapshot");
+        this.walFile = directory.resolve("car-catalog.wal");
+    }
+
+    /**
+     * Maps and validates the snapshot, or returns {@code null} if there is none or it is unusable.
+     */
+    Snapshot readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < 28 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(buffer.limit() - Integer.BYTES));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                return null;
+            }
+            buffer.position(8);
+            long syncedSeq = buffer.getLong();
+            int size = buffer.getInt();
+            int dictionarySize = buffer.getInt();
+            List<String> dictionary = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            long[] ids = new long[size];
+            int[] years = new int[size];
+            long[] priceMinor = new long[size];
+            int[] makes = new int[size];
+            int[] models = new int[size];
+            long[] currentOrders = new long[size];
+            readLongs(buffer, ids);
+            readInts(buffer, years);
+            readLongs(buffer, priceMinor);
+            readInts(buffer, makes);
+            readInts(buffer, models);
+            readLongs(buffer, currentOrders);
+            int others = buffer.getInt();
+            Map<Long, String> otherCurrentOrders = new HashMap<>();
+            for (int i = 0; i < others; i++) {
+                long carId = buffer.getLong();
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                otherCurrentOrders.put(carId, new String(bytes, StandardCharsets.UTF_8));
+            }
+            long[] words = new long[buffer.getInt()];
+            readLongs(buffer, words);
+            return new Snapshot(syncedSeq, size, ids, years, priceMinor, makes, models, currentOrders,
+                    otherCurrentOrders, BitSet.valueOf(words), dictionary);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file through a memory mapping and moves it over the old one.
+     */
+    void writeSnapshot(Snapshot snapshot) throws IOException {
+        List<byte[]> dictionary = new ArrayList<>(snapshot.dictionary().size());
+        long length = 4 + 4 + 8 + 4 + 4;
+        for (String value : snapshot.dictionary()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dictionary.add(bytes);
+            length += 4 + bytes.length;
+        }
+        Map<Long, byte[]> others = new HashMap<>();
+        length += 4;
+        for (Map.Entry<Long, String> other : snapshot.otherCurrentOrders().entrySet()) {
+            byte[] bytes = other.getValue().getBytes(StandardCharsets.UTF_8);
+            others.put(other.getKey(), bytes);
+            length += 8 + 4 + bytes.length;
+        }
+        long[] words = snapshot.available().toLongArray();
+        length += (long) snapshot.size() * (8 + 4 + 8 + 4 + 4 + 8) + 4 + (long) words.length * 8 + 4;
+
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(snapshot.syncedSeq())
+                    .putInt(snapshot.size()).putInt(dictionary.size());
+            for (byte[] bytes : dictionary) {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            int size = snapshot.size();
+            buffer.asLongBuffer().put(snapshot.ids(), 0, size);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            writeInts(buffer, snapshot.years(), size);
+            buffer.asLongBuffer().put(snapshot.priceMinor(), 0, size);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            writeInts(buffer, snapshot.makes(), size);
+            writeInts(buffer, snapshot.models(), size);
+            buffer.asLongBuffer().put(snapshot.currentOrders(), 0, size);
+            buffer.position(buffer.position() + size * Long.BYTES);
+            buffer.putInt(others.size());
+            for (Map.Entry<Long, byte[]> other : others.entrySet()) {
+                buffer.putLong(other.getKey()).putInt(other.getValue().length).put(other.getValue());
+            }
+            buffer.putInt(words.length);
+            buffer.asLongBuffer().put(words);
+            buffer.position(buffer.position() + words.length * Long.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc.getValue());
+            buffer.force();
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void appendPut(long id, int year, long priceMinor, boolean available, String make, String model,
+                   String currentOrder) throws IOException {
+        payload.reset();
+        payloadOut.writeByte(PUT);
+        payloadOut.writeLong(id);
+        payloadOut.writeInt(year);
+        payloadOut.writeLong(priceMinor);
+        payloadOut.writeBoolean(available);
+        writeNullable(make);
+        writeNullable(model);
+        writeNullable(currentOrder);
+        stage();
+    }
+
+    void appendRemove(long id) throws IOException {
+        payload.reset();
+        payloadOut.writeByte(REMOVE);
+        payloadOut.writeLong(id);
+        stage();
+    }
+
+    /**
+     * Writes the records appended since the last flush in one call.
+     */
+    void flush() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+        pending.reset();
+        FileChannel channel = wal();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Applies every intact WAL record in order and cuts the log after the last one.
+     *
+     * @return the number of records replayed
+     */
+    int replay(Visitor visitor) throws IOException {
+        FileChannel channel = wal();
+        int replayed = 0;
+        long valid = 0;
+        if (channel.size() > 0) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+                byte type = in.readByte();
+                if (type == PUT) {
+                    visitor.put(in.readLong(), in.readInt(), in.readLong(), in.readBoolean(),
+                            readNullable(in), readNullable(in), readNullable(in));
+                } else if (type == REMOVE) {
+                    visitor.remove(in.readLong());
+                } else {
+                    break;
+                }
+                replayed++;
+                valid = buffer.position();
+            }
+        }
+        channel.truncate(valid);
+        channel.position(valid);
+        return replayed;
+    }
+
+    void truncateWal() throws IOException {
+        pending.reset();
+        FileChannel channel = wal();
+        channel.truncate(0);
+        channel.position(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private FileChannel wal() throws IOException {
+        if (wal == null) {
+            wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            wal.position(wal.size());
+        }
+        return wal;
+    }
+
+    private void stage() throws IOException {
+        payloadOut.flush();
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        DataOutputStream out = new DataOutputStream(pending);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+        out.flush();
+    }
+
+    private void writeNullable(String value) throws IOException {
+        payloadOut.writeBoolean(value != null);
+        if (value != null) {
+            payloadOut.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void readLongs(ByteBuffer buffer, long[] target) {
+        buffer.asLongBuffer().get(target);
+        buffer.position(buffer.position() + target.length * Long.BYTES);
+    }
+
+    private static void readInts(ByteBuffer buffer, int[] target) {
+        buffer.asIntBuffer().get(target);
+        buffer.position(buffer.position() + target.length * Integer.BYTES);
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] source, int size) {
+        buffer.asIntBuffer().put(source, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+    }
+
+    /**
+     * Receives replayed WAL records.
+     */
+    interface Visitor {
+        void put(long id, int year, long priceMinor, boolean available, String make, String model,
+                 String currentOrder);
+
+        void remove(long id);
+    }
+
+    /**
+     * The catalog's columns; arrays may be longer than {@code size}.
+     */
+    record Snapshot(long syncedSeq, int size, long[] ids, int[] years, long[] priceMinor, int[] makes,
+                    int[] models, long[] currentOrders, Map<Long, String> otherCurrentOrders, BitSet available,
+                    List<String> dictionary) {
+    }
+}
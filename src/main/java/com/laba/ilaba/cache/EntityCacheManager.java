@@ -0,0 +1,262 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.EntityKind;
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.Invalidation;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.IdentityMapAccessor;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Invalidates the shared cache after writes. Repositories call this once their transaction has
+ * committed; the changed entities are evicted and every query results cache that could contain them
+ * is cleared, so the next read on this node goes to the database. The same invalidations are
+ * published to the other nodes through {@link PgNotifyInvalidationChannel}. Both the primary and the
+ * {@link ReadOnly} factory keep their own shared cache, and both are invalidated, as are the
+ * {@link QuoteCache} entries of changed cars. Changed cars are also written to the {@link CarCatalog},
+ * or reloaded into it where only their ids are known.
+ */
+@ApplicationScoped
+@Slf4j
+public class EntityCacheManager implements PgNotifyInvalidationChannel.Handler {
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    @ReadOnly
+    private EntityManagerFactory readOnlyEntityManagerFactory;
+
+    @Inject
+    private QuoteCache quoteCache;
+
+    @Inject
+    private CarCatalog carCatalog;
+
+    private final CacheStatistics statistics = CacheStatistics.getInstance();
+
+    private PgNotifyInvalidationChannel channel;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!Boolean.parseBoolean(System.getProperty("ilaba.cache.notify.enabled", "true"))) {
+            log.info("Cross-node cache invalidation is disabled");
+            return;
+        }
+        Map<String, Object> properties = entityManagerFactory.getProperties();
+        channel = new PgNotifyInvalidationChannel(
+                (String) properties.get("jakarta.persistence.jdbc.url"),
+                (String) properties.get("jakarta.persistence.jdbc.user"),
+                (String) properties.get("jakarta.persistence.jdbc.password"),
+                UUID.randomUUID().toString().substring(0, 8),
+                Long.getLong("ilaba.cache.notify.flush-millis", 50),
+                this);
+        channel.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public void carChanged(Car car) {
+        evictCar(car.getId());
+        clearQueryCache(Car.FIND_AVAILABLE);
+        publish(EntityKind.CAR, car.getId(), car.getVersion());
+        carCatalog.put(car);
+    }
+
+    public void carsChanged(Collection<Car> cars) {
+        for (Car car : cars) {
+            evictCar(car.getId());
+            publish(EntityKind.CAR, car.getId(), car.getVersion());
+        }
+        clearQueryCache(Car.FIND_AVAILABLE);
+        carCatalog.putAll(cars);
+    }
+
+    /**
+     * For writes that bypass the persistence context, where the new version is not known.
+     */
+    public void carsChangedById(Collection<Long> ids) {
+        for (Long id : ids) {
+            evictCar(id);
+            publish(EntityKind.CAR, id, null);
+        }
+        clearQueryCache(Car.FIND_AVAILABLE);
+        refreshCatalog(ids);
+    }
+
+    public void carDeleted(Long id) {
+        evictCar(id);
+        publish(EntityKind.CAR, id, null);
+        clearQueryCache(Car.FIND_AVAILABLE);
+        carCatalog.remove(id);
+    }
+
+    public void userChanged(User user) {
+        evictUser(user.getId());
+        clearQueryCache(User.FIND_BY_EMAIL);
+        publish(EntityKind.USER, user.getId(), user.getVersion());
+    }
+
+    public void userDeleted(Long id) {
+        evictUser(id);
+        clearQueryCache(User.FIND_BY_EMAIL);
+        publish(EntityKind.USER, id, null);
+    }
+
+    /**
+     * For orders, which carry no version; also used by writes that bypass the persistence context.
+     */
+    public void ordersChanged(Collection<Long> ids) {
+        for (Long id : ids) {
+            evictOrder(id);
+            publish(EntityKind.ORDER, id, null);
+        }
+    }
+
+    public void evictAll() {
+        for (EntityManagerFactory factory : factories()) {
+            factory.getCache().evictAll();
+        }
+        clearQueryCache(Car.FIND_AVAILABLE);
+        clearQueryCache(User.FIND_BY_EMAIL);
+        quoteCache.clear();
+        log.info("Shared cache cleared");
+        try {
+            // Every car write is in the change log, so a ready catalog only needs the changes it missed;
+            // this is also what keeps the resync on the channel's first connect from undoing a warm restart.
+            if (carCatalog.isReady()) {
+                carCatalog.catchUp();
+            } else {
+                carCatalog.load();
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not bring the car catalog up to date", e);
+        }
+    }
+
+    public Map<String, Object> statistics() {
+        return statistics.snapshot();
+    }
+
+    @Override
+    public void onInvalidations(List<Invalidation> invalidations) {
+        Set<Long> changedCars = new LinkedHashSet<>();
+        boolean usersChanged = false;
+        for (Invalidation invalidation : invalidations) {
+            if (invalidation.kind() == EntityKind.CAR) {
+                changedCars.add(invalidation.id());
+                evictIfStale(Car.class, invalidation);
+                quoteCache.evictCar(invalidation.id());
+            } else if (invalidation.kind() == EntityKind.ORDER) {
+                evictOrder(invalidation.id());
+            } else {
+                usersChanged = true;
+                evictIfStale(User.class, invalidation);
+            }
+        }
+        if (!changedCars.isEmpty()) {
+            clearQueryCache(Car.FIND_AVAILABLE);
+            refreshCatalog(changedCars);
+        }
+        if (usersChanged) {
+            clearQueryCache(User.FIND_BY_EMAIL);
+        }
+        log.debug("Applied {} remote cache invalidations", invalidations.size());
+    }
+
+    @Override
+    public void onResync() {
+        evictAll();
+    }
+
+    /**
+     * A cached copy that is already at the announced version (e.g. reloaded after the remote commit)
+     * does not need to be thrown away.
+     */
+    private void evictIfStale(Class<?> entityClass, Invalidation invalidation) {
+        for (EntityManagerFactory factory : factories()) {
+            if (isStale(factory, entityClass, invalidation)) {
+                factory.getCache().evict(entityClass, invalidation.id());
+                statistics.recordEviction(entityClass.getSimpleName());
+            }
+        }
+    }
+
+    private static boolean isStale(EntityManagerFactory factory, Class<?> entityClass, Invalidation invalidation) {
+        if (invalidation.version() == null) {
+            return true;
+        }
+        IdentityMapAccessor identityMap = JpaHelper.getServerSession(factory).getIdentityMapAccessor();
+        Object cached = identityMap.getFromIdentityMap(invalidation.id(), entityClass);
+        Long cachedVersion = cached instanceof Car car ? car.getVersion()
+                : cached instanceof User user ? user.getVersion() : null;
+        return cachedVersion == null || cachedVersion < invalidation.version();
+    }
+
+    private void evictCar(Long id) {
+        for (EntityManagerFactory factory : factories()) {
+            factory.getCache().evict(Car.class, id);
+        }
+        quoteCache.evictCar(id);
+        statistics.recordEviction(Car.class.getSimpleName());
+    }
+
+    private void refreshCatalog(Collection<Long> ids) {
+        try {
+            carCatalog.refresh(ids);
+        } catch (RuntimeException e) {
+            log.error("Could not reload cars {} into the catalog", ids, e);
+        }
+    }
+
+    private void evictUser(Long id) {
+        for (EntityManagerFactory factory : factories()) {
+            factory.getCache().evict(User.class, id);
+        }
+        statistics.recordEviction(User.class.getSimpleName());
+    }
+
+    private void evictOrder(Long id) {
+        for (EntityManagerFactory factory : factories()) {
+            factory.getCache().evict(Order.class, id);
+        }
+        statistics.recordEviction(Order.class.getSimpleName());
+    }
+
+    private List<EntityManagerFactory> factories() {
+        return List.of(entityManagerFactory, readOnlyEntityManagerFactory);
+    }
+
+    private void publish(EntityKind kind, Long id, Long version) {
+        if (channel != null) {
+            channel.publish(kind, id, version);
+        }
+    }
+
+    private void clearQueryCache(String queryName) {
+        for (EntityManagerFactory factory : factories()) {
+            JpaHelper.getServerSession(factory).getIdentityMapAccessor().clearQueryCache(queryName);
+        }
+        statistics.recordEviction(queryName);
+    }
+}
@@ -0,0 +1,272 @@
+package com.laba.ilaba.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache coherence between nodes over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Invalidations published on this node are coalesced per entity and sent every {@code flushMillis}
+ * as compact {@code pg_notify} payloads ({@code node|C12:4,U7:}, i.e. kind, id and version, with
+ * an empty version meaning "evict regardless"). A dedicated connection listens for the other
+ * nodes' payloads and hands them to the {@link Handler}. Notifications sent while the listening
+ * connection is down are lost, so every (re)connect asks the handler for a full resync.
+ */
+@Slf4j
+public class PgNotifyInvalidationChannel implements AutoCloseable {
+
+    public static final String CHANNEL = "ilaba_cache";
+
+    // PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    public enum EntityKind {
+        CAR('C'), USER('U'), ORDER('O');
+
+        private final char code;
+
+        EntityKind(char code) {
+            this.code = code;
+        }
+
+        static EntityKind fromCode(char code) {
+            for (EntityKind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    public record Invalidation(EntityKind kind, long id, Long version) {
+
+        /**
+         * Keeps the newer of two invalidations of the same entity; an unknown version always wins.
+         */
+        static Invalidation newer(Invalidation a, Invalidation b) {
+            if (a.version() == null || b.version() == null) {
+                return new Invalidation(a.kind(), a.id(), null);
+            }
+            return a.version() >= b.version() ? a : b;
+        }
+    }
+
+    public interface Handler {
+        void onInvalidations(List<Invalidation> invalidations);
+
+        void onResync();
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String nodeId;
+    private final long flushMillis;
+    private final Handler handler;
+    private final Map<String, Invalidation> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread listener;
+    private Thread publisher;
+    private Connection publishConnection;
+
+    public PgNotifyInvalidationChannel(String url, String user, String password, String nodeId,
+                                       long flushMillis, Handler handler) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.nodeId = nodeId;
+        this.flushMillis = flushMillis;
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listener = daemon("ilaba-cache-listener", this::listenLoop);
+        publisher = daemon("ilaba-cache-publisher", this::publishLoop);
+        log.info("Cache invalidation channel started for node {}", nodeId);
+    }
+
+    public void publish(EntityKind kind, long id, Long version) {
+        pending.merge(kind.code + Long.toString(id), new Invalidation(kind, id, version), Invalidation::newer);
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            publisher.interrupt();
+            joinQuietly(listener);
+            joinQuietly(publisher);
+        }
+        log.info("Cache invalidation channel stopped for node {}", nodeId);
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, user, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for cache invalidations on channel '{}'", CHANNEL);
+                handler.onResync();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    List<Invalidation> invalidations = new ArrayList<>();
+                    for (PGNotification notification : notifications) {
+                        parsePayload(notification.getParameter(), invalidations);
+                    }
+                    if (!invalidations.isEmpty()) {
+                        handler.onInvalidations(invalidations);
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener lost its connection, reconnecting: {}", e.getMessage());
+                    sleepQuietly(RECONNECT_DELAY_MILLIS);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error handling cache invalidations", e);
+            }
+        }
+    }
+
+    private void publishLoop() {
+        while (running) {
+            sleepQuietly(flushMillis);
+            if (pending.isEmpty()) {
+                continue;
+            }
+            List<Invalidation> batch = new ArrayList<>(pending.size());
+            for (Iterator<String> keys = pending.keySet().iterator(); keys.hasNext(); ) {
+                Invalidation invalidation = pending.remove(keys.next());
+                if (invalidation != null) {
+                    batch.add(invalidation);
+                }
+            }
+            try {
+                send(batch);
+            } catch (SQLException e) {
+                log.warn("Failed to publish {} cache invalidations, will retry: {}", batch.size(), e.getMessage());
+                batch.forEach(invalidation -> publish(invalidation.kind(), invalidation.id(), invalidation.version()));
+                closePublishConnection();
+                sleepQuietly(RECONNECT_DELAY_MILLIS);
+            }
+        }
+        closePublishConnection();
+    }
+
+    private void send(List<Invalidation> batch) throws SQLException {
+        if (publishConnection == null || publishConnection.isClosed()) {
+            publishConnection = DriverManager.getConnection(url, user, password);
+            publishConnection.setAutoCommit(true);
+        }
+        try (PreparedStatement statement = publishConnection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            StringBuilder payload = new StringBuilder(nodeId).append('|');
+            int headerLength = payload.length();
+            for (Invalidation invalidation : batch) {
+                String entry = invalidation.kind().code + Long.toString(invalidation.id()) + ':'
+                        + (invalidation.version() != null ? invalidation.version() : "");
+                if (payload.length() > headerLength
+                        && payload.length() + entry.length() + 1 > MAX_PAYLOAD_BYTES) {
+                    notify(statement, payload);
+                    payload.setLength(headerLength);
+                }
+                if (payload.length() > headerLength) {
+                    payload.append(',');
+                }
+                payload.append(entry);
+            }
+            notify(statement, payload);
+        }
+        log.debug("Published {} cache invalidations", batch.size());
+    }
+
+    private static void notify(PreparedStatement statement, StringBuilder payload) throws SQLException {
+        statement.setString(1, CHANNEL);
+        statement.setString(2, payload.toString());
+        statement.execute();
+    }
+
+    void parsePayload(String payload, List<Invalidation> into) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        for (String entry : payload.substring(separator + 1).split(",")) {
+            int colon = entry.indexOf(':');
+            if (entry.length() < 2 || colon < 0) {
+                continue;
+            }
+            EntityKind kind = EntityKind.fromCode(entry.charAt(0));
+            if (kind == null) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(entry.substring(1, colon));
+                String version = entry.substring(colon + 1);
+                into.add(new Invalidation(kind, id, version.isEmpty() ? null : Long.valueOf(version)));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed cache invalidation entry: {}", entry);
+            }
+        }
+    }
+
+    private void closePublishConnection() {
+        if (publishConnection != null) {
+            try {
+                publishConnection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing publish connection: {}", e.getMessage());
+            }
+            publishConnection = null;
+        }
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
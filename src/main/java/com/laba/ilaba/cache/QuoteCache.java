@@ -0,0 +1,75 @@
+package com.laba.ilaba.cache;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of computed rental totals, keyed by car and date range. Each entry remembers the daily price it
+ * was computed from and is only returned for that price, so a quote can never outlive a price change
+ * even before {@link EntityCacheManager} evicts the car's entries.
+ */
+@ApplicationScoped
+public class QuoteCache {
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+
+    public QuoteCache() {
+        this(Integer.getInteger("ilaba.pricing.quote-cache-entries", 10_000));
+    }
+
+    public QuoteCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > QuoteCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached total in minor units, or -1 if there is none for this daily price.
+     */
+    public long get(long carId, LocalDate from, LocalDate to, long pricePerDayMinor) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(new Key(carId, from, to));
+        }
+        return entry != null && entry.pricePerDayMinor() == pricePerDayMinor ? entry.totalMinor() : -1;
+    }
+
+    public void put(long carId, LocalDate from, LocalDate to, long pricePerDayMinor, long totalMinor) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(new Key(carId, from, to), new Entry(pricePerDayMinor, totalMinor));
+        }
+    }
+
+    public void evictCar(long carId) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.carId() == carId);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Key(long carId, LocalDate from, LocalDate to) {}
+
+    private record Entry(long pricePerDayMinor, long totalMinor) {}
+}
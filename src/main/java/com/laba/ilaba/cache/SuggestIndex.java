@@ -0,0 +1,344 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.dto.CarSuggestion;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Prefix index over car makes and models for {@code GET /cars/suggest}. Every make and every make/model
+ * pair is an entry with its fleet count and number of available cars. Entries are reached through a
+ * sorted array of lower-cased keys (the make, the model and "make model"), so the keys starting with a
+ * query are one range found by binary search. A segment tree over the key array holds the best-ranked
+ * key of every span, most available cars first and then most cars, and the top {@code limit} of a range
+ * are peeled off it one at a time: a query costs {@code O(limit * log keys)} however short the prefix,
+ * and works in per-thread scratch arrays, so nothing but the result list and its elements is allocated.
+ * <p>
+ * {@link CarCatalog} feeds the index: it is rebuilt whenever the catalog is loaded or restored and
+ * updated for every car the catalog puts or removes. Counts and the tree paths above an entry's keys
+ * change in place; only a make or model the index has not seen yet republishes the key array. Entries
+ * whose cars are all gone rank last with a zero count until the next rebuild and are never returned.
+ */
+@ApplicationScoped
+public class SuggestIndex {
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int NONE = -1;
+    // A range splits in two per extracted key and a pair can be extracted through both of its keys.
+    private static final int MAX_RANGES = 4 * MAX_LIMIT + 1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private volatile Structure structure = new Structure(new String[0], new int[0], new int[]{NONE, NONE}, 1,
+            new String[0], new String[0], new String[0], new int[0], new int[0], new int[0], new int[0]);
+    private volatile boolean ready;
+
+    // Writer side, guarded by this.
+    private final Map<String, Integer> makeEntries = new HashMap<>();
+    private final Map<String, Integer> pairEntries = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    private final List<String> makes = new ArrayList<>();
+    private final List<String> models = new ArrayList<>();
+    private int[] cars = new int[16];
+    private int[] available = new int[16];
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the index with the given cars.
+     */
+    public synchronized void rebuild(int count, IntFunction<String> make, IntFunction<String> model,
+                                     IntPredicate isAvailable) {
+        makeEntries.clear();
+        pairEntries.clear();
+        texts.clear();
+        makes.clear();
+        models.clear();
+        cars = new int[16];
+        available = new int[16];
+        for (int i = 0; i < count; i++) {
+            count(make.apply(i), model.apply(i), isAvailable.test(i), 1);
+        }
+        publish();
+        ready = true;
+    }
+
+    /**
+     * Moves a car from its old make, model and availability to the new ones; {@code oldMake} is
+     * {@code null} for a car that was not indexed before.
+     */
+    public synchronized void carChanged(String oldMake, String oldModel, boolean wasAvailable,
+                                        String make, String model, boolean isAvailable) {
+        int entries = texts.size();
+        if (oldMake != null) {
+            count(oldMake, oldModel, wasAvailable, -1);
+        }
+        count(make, model, isAvailable, 1);
+        if (texts.size() != entries) {
+            publish();
+        }
+    }
+
+    public synchronized void carRemoved(String make, String model, boolean wasAvailable) {
+        count(make, model, wasAvailable, -1);
+    }
+
+    /**
+     * The best {@code limit} makes and models starting with {@code query}, ignoring case.
+     */
+    public List<CarSuggestion> suggest(String query, int limit) {
+        Structure s = structure;
+        int max = Math.max(0, Math.min(limit, MAX_LIMIT));
+        Scratch scratch = SCRATCH.get();
+        int found = 0;
+        int ranges = push(s, scratch, 0, lowerBound(s.keys, query, false), lowerBound(s.keys, query, true));
+        while (found < max && ranges > 0) {
+            int chosen = 0;
+            for (int i = 1; i < ranges; i++) {
+                if (better(s, scratch.best[i], scratch.best[chosen])) {
+                    chosen = i;
+                }
+            }
+            int key = scratch.best[chosen];
+            int entry = s.keyEntry[key];
+            if (s.cars[entry] <= 0) {
+                break;
+            }
+            int from = scratch.from[chosen];
+            int to = scratch.to[chosen];
+            ranges--;
+            scratch.from[chosen] = scratch.from[ranges];
+            scratch.to[chosen] = scratch.to[ranges];
+            scratch.best[chosen] = scratch.best[ranges];
+            if (!contains(scratch.entries, found, entry)) {
+                scratch.entries[found++] = entry;
+            }
+            ranges = push(s, scratch, ranges, from, key);
+            ranges = push(s, scratch, ranges, key + 1, to);
+        }
+        List<CarSuggestion> suggestions = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            int entry = scratch.entries[i];
+            suggestions.add(new CarSuggestion(s.texts[entry], s.makes[entry], s.models[entry],
+                    s.cars[entry], s.available[entry]));
+        }
+        return suggestions;
+    }
+
+    private void count(String make, String model, boolean isAvailable, int delta) {
+        if (make == null) {
+            return;
+        }
+        add(entry(makeEntries, make, make, null), isAvailable, delta);
+        if (model != null) {
+            add(entry(pairEntries, make + '\u0000' + model, make, model), isAvailable, delta);
+        }
+    }
+
+    private void add(int entry, boolean isAvailable, int delta) {
+        cars[entry] += delta;
+        if (isAvailable) {
+            available[entry] += delta;
+        }
+        Structure s = structure;
+        if (entry < s.texts.length) {
+            update(s, s.entryKey[entry]);
+            update(s, s.entryModelKey[entry]);
+        }
+    }
+
+    private int entry(Map<String, Integer> entries, String key, String make, String model) {
+        Integer entry = entries.get(key);
+        if (entry == null) {
+            entry = texts.size();
+            entries.put(key, entry);
+            texts.add(model != null ? make + " " + model : make);
+            makes.add(make);
+            models.add(model);
+            if (entry == cars.length) {
+                cars = Arrays.copyOf(cars, entry * 2);
+                available = Arrays.copyOf(available, entry * 2);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Builds the sorted key array and its tree over all entries and makes them visible to readers.
+     */
+    private void publish() {
+        int entries = texts.size();
+        List<Key> keys = new ArrayList<>(entries * 2);
+        for (int entry = 0; entry < entries; entry++) {
+            keys.add(new Key(lower(texts.get(entry)), entry, false));
+            if (models.get(entry) != null) {
+                keys.add(new Key(lower(models.get(entry)), entry, true));
+            }
+        }
+        keys.sort((a, b) -> a.text().compareTo(b.text()));
+        String[] keyTexts = new String[keys.size()];
+        int[] keyEntry = new int[keys.size()];
+        int[] entryKey = new int[entries];
+        int[] entryModelKey = new int[entries];
+        Arrays.fill(entryModelKey, NONE);
+        for (int i = 0; i < keyTexts.length; i++) {
+            Key key = keys.get(i);
+            keyTexts[i] = key.text();
+            keyEntry[i] = key.entry();
+            if (key.model()) {
+                entryModelKey[key.entry()] = i;
+            } else {
+                entryKey[key.entry()] = i;
+            }
+        }
+        int leaves = Integer.highestOneBit(Math.max(1, keyTexts.length - 1)) << 1;
+        int[] tree = new int[2 * leaves];
+        Arrays.fill(tree, NONE);
+        Structure s = new Structure(keyTexts, keyEntry, tree, leaves, texts.toArray(new String[0]),
+                makes.toArray(new String[0]), models.toArray(new String[0]), cars, available, entryKey, entryModelKey);
+        for (int i = 0; i < keyTexts.length; i++) {
+            tree[leaves + i] = i;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = pick(s, tree[2 * node], tree[2 * node + 1]);
+        }
+        structure = s;
+    }
+
+    /**
+     * Recomputes the tree path above a key after its entry's counts changed.
+     */
+    private static void update(Structure s, int key) {
+        if (key == NONE) {
+            return;
+        }
+        for (int node = (s.leaves + key) >> 1; node > 0; node >>= 1) {
+            s.tree[node] = pick(s, s.tree[2 * node], s.tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Adds the range {@code [from, to)} with its best key to the scratch ranges, if it is not empty.
+     */
+    private static int push(Structure s, Scratch scratch, int ranges, int from, int to) {
+        if (from >= to || ranges == MAX_RANGES) {
+            return ranges;
+        }
+        int best = NONE;
+        for (int left = s.leaves + from, right = s.leaves + to; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                best = pick(s, best, s.tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                best = pick(s, best, s.tree[--right]);
+            }
+        }
+        scratch.from[ranges] = from;
+        scratch.to[ranges] = to;
+        scratch.best[ranges] = best;
+        return ranges + 1;
+    }
+
+    private static int pick(Structure s, int a, int b) {
+        return better(s, b, a) ? b : a;
+    }
+
+    /**
+     * Whether key {@code a} ranks above key {@code b}; {@link #NONE} ranks below everything.
+     */
+    private static boolean better(Structure s, int a, int b) {
+        if (a == NONE || b == NONE) {
+            return b == NONE && a != NONE;
+        }
+        int ea = s.keyEntry[a];
+        int eb = s.keyEntry[b];
+        if (ea == eb) {
+            return a < b;
+        }
+        if (s.available[ea] != s.available[eb]) {
+            return s.available[ea] > s.available[eb];
+        }
+        if (s.cars[ea] != s.cars[eb]) {
+            return s.cars[ea] > s.cars[eb];
+        }
+        return s.texts[ea].compareTo(s.texts[eb]) < 0;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First key at or after the keys starting with {@code query} ({@code after} false), or after them
+     * ({@code after} true), comparing the query lower-cased char by char.
+     */
+    private static int lowerBound(String[] keys, String query, boolean after) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = comparePrefix(keys[middle], query);
+            if (comparison < 0 || (after && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares a key's first {@code query.length()} chars with the query; 0 if the key starts with it.
+     */
+    private static int comparePrefix(String key, String query) {
+        int length = Math.min(key.length(), query.length());
+        for (int i = 0; i < length; i++) {
+            char k = key.charAt(i);
+            char q = Character.toLowerCase(query.charAt(i));
+            if (k != q) {
+                return k - q;
+            }
+        }
+        return key.length() < query.length() ? -1 : 0;
+    }
+
+    private static String lower(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private record Key(String text, int entry, boolean model) {
+    }
+
+    /**
+     * What readers see. The tree and the count arrays, which are shared with the writer, change in place.
+     */
+    private record Structure(String[] keys, int[] keyEntry, int[] tree, int leaves, String[] texts,
+                             String[] makes, String[] models, int[] cars, int[] available, int[] entryKey,
+                             int[] entryModelKey) {
+    }
+
+    private static final class Scratch {
+        final int[] from = new int[MAX_RANGES];
+        final int[] to = new int[MAX_RANGES];
+        final int[] best = new int[MAX_RANGES];
+        final int[] entries = new int[MAX_LIMIT];
+    }
+}
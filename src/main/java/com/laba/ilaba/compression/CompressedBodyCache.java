@@ -0,0 +1,76 @@
+package com.laba.ilaba.compression;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Small LRU of recently compressed bodies. Listing endpoints keep returning the same JSON until
+ * something changes, so the compressed bytes of an identical body can be written straight out
+ * instead of running it through the deflater again. Entries are keyed by coding, length and CRC32
+ * and the raw bytes are compared on lookup, so a checksum collision can never serve a wrong body.
+ */
+@ApplicationScoped
+public class CompressedBodyCache {
+
+    private final int maxEntries;
+    private final int maxBodyBytes;
+    private final Map<Key, Entry> entries;
+
+    public CompressedBodyCache() {
+        this(Integer.getInteger("ilaba.compression.cache-entries", 64),
+                Integer.getInteger("ilaba.compression.cache-max-body", 1 << 20));
+    }
+
+    public CompressedBodyCache(int maxEntries, int maxBodyBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBodyBytes = maxBodyBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > CompressedBodyCache.this.maxEntries;
+            }
+        };
+    }
+
+    public byte[] get(ContentCoding coding, byte[] body) {
+        if (maxEntries <= 0 || body.length > maxBodyBytes) {
+            return null;
+        }
+        Key key = keyOf(coding, body);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null && Arrays.equals(entry.body(), body) ? entry.compressed() : null;
+    }
+
+    public void put(ContentCoding coding, byte[] body, byte[] compressed) {
+        if (maxEntries <= 0 || body.length > maxBodyBytes) {
+            return;
+        }
+        Key key = keyOf(coding, body);
+        synchronized (entries) {
+            entries.put(key, new Entry(body, compressed));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static Key keyOf(ContentCoding coding, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return new Key(coding, body.length, crc.getValue());
+    }
+
+    private record Key(ContentCoding coding, int length, long crc) {}
+
+    private record Entry(byte[] body, byte[] compressed) {}
+}
@@ -0,0 +1,121 @@
+package com.laba.ilaba.compression;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compresses response bodies with gzip or deflate depending on the client's {@code Accept-Encoding}.
+ * The entity is serialized into a buffer first so that small bodies, where the gzip framing costs
+ * more than it saves, can go out as they are. {@link StreamingOutput} bodies are compressed on the
+ * fly instead, since buffering them would defeat the point of streaming.
+ */
+@Provider
+@Slf4j
+public class CompressionInterceptor implements WriterInterceptor {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int minSize = Integer.getInteger("ilaba.compression.min-size", 1024);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Inject
+    private DeflaterPool deflaterPool;
+
+    @Inject
+    private CompressedBodyCache cache;
+
+    @Inject
+    private CompressionMetrics metrics;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        if (!isCompressible(context)) {
+            context.proceed();
+            return;
+        }
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCoding coding = ContentCoding.negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            metrics.recordNotAccepted();
+            context.proceed();
+            return;
+        }
+        if (context.getEntity() instanceof StreamingOutput) {
+            writeStreamed(context, coding);
+            return;
+        }
+
+        OutputStream original = context.getOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize * 2);
+        context.setOutputStream(buffer);
+        context.proceed();
+        context.setOutputStream(original);
+
+        byte[] body = buffer.toByteArray();
+        if (body.length < minSize) {
+            metrics.recordBelowThreshold();
+            original.write(body);
+            return;
+        }
+
+        byte[] compressed = cache.get(coding, body);
+        if (compressed != null) {
+            metrics.recordCacheHit(body.length, compressed.length);
+        } else {
+            long cpuStart = cpuTime();
+            compressed = PooledDeflaterOutputStream.compress(body, coding, deflaterPool);
+            metrics.recordCompressed(body.length, compressed.length, cpuTime() - cpuStart);
+            cache.put(coding, body, compressed);
+        }
+        log.debug("Compressed response with {}: {} -> {} bytes", coding.token(), body.length, compressed.length);
+
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, coding.token());
+        context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        original.write(compressed);
+    }
+
+    private void writeStreamed(WriterInterceptorContext context, ContentCoding coding) throws IOException {
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, coding.token());
+        context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        OutputStream original = context.getOutputStream();
+        PooledDeflaterOutputStream compressing = new PooledDeflaterOutputStream(original, coding, deflaterPool);
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.finish();
+            metrics.recordStreamed();
+        } finally {
+            context.setOutputStream(original);
+            compressing.abort();
+        }
+    }
+
+    private boolean isCompressible(WriterInterceptorContext context) {
+        MediaType mediaType = context.getMediaType();
+        if (mediaType == null || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        return ("application".equals(mediaType.getType()) && mediaType.getSubtype().endsWith("json"))
+                || ("text".equals(mediaType.getType()) && !"event-stream".equals(mediaType.getSubtype()));
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
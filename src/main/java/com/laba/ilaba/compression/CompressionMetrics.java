@@ -0,0 +1,64 @@
+package com.laba.ilaba.compression;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@ApplicationScoped
+public class CompressionMetrics {
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder streamed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder belowThreshold = new LongAdder();
+    private final LongAdder notAccepted = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    public void recordCompressed(long rawBytes, long compressedBytes, long cpuTimeNanos) {
+        compressed.increment();
+        bytesIn.add(rawBytes);
+        bytesOut.add(compressedBytes);
+        cpuNanos.add(cpuTimeNanos);
+    }
+
+    public void recordCacheHit(long rawBytes, long compressedBytes) {
+        cacheHits.increment();
+        bytesIn.add(rawBytes);
+        bytesOut.add(compressedBytes);
+    }
+
+    public void recordStreamed() {
+        streamed.increment();
+    }
+
+    public void recordBelowThreshold() {
+        belowThreshold.increment();
+    }
+
+    public void recordNotAccepted() {
+        notAccepted.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        long count = compressed.sum();
+        long cpu = cpuNanos.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("compressedResponses", count);
+        snapshot.put("streamedResponses", streamed.sum());
+        snapshot.put("cacheHits", cacheHits.sum());
+        snapshot.put("skippedBelowThreshold", belowThreshold.sum());
+        snapshot.put("skippedNotAccepted", notAccepted.sum());
+        snapshot.put("bytesIn", in);
+        snapshot.put("bytesOut", out);
+        snapshot.put("compressionRatio", out == 0 ? 0.0 : (double) in / out);
+        snapshot.put("cpuTimeMillis", cpu / 1_000_000.0);
+        snapshot.put("avgCpuMicrosPerResponse", count == 0 ? 0.0 : cpu / 1_000.0 / count);
+        return snapshot;
+    }
+}
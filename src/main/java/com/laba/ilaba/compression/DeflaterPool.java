@@ -0,0 +1,69 @@
+package com.laba.ilaba.compression;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Keeps idle {@link Deflater} instances around so a compressed response does not pay for a fresh
+ * native zlib stream every time. gzip needs raw deflate ("nowrap") while the deflate coding uses the
+ * zlib wrapper, so each coding has its own queue.
+ */
+@ApplicationScoped
+@Slf4j
+public class DeflaterPool {
+
+    private final int level;
+    private final BlockingQueue<Deflater> gzipDeflaters;
+    private final BlockingQueue<Deflater> zlibDeflaters;
+
+    public DeflaterPool() {
+        this(Integer.getInteger("ilaba.compression.level", 6),
+                Integer.getInteger("ilaba.compression.pool-size", Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    public DeflaterPool(int level, int poolSize) {
+        this.level = level;
+        this.gzipDeflaters = new ArrayBlockingQueue<>(poolSize);
+        this.zlibDeflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public Deflater borrow(ContentCoding coding) {
+        Deflater deflater = queueFor(coding).poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, coding == ContentCoding.GZIP);
+        }
+        return deflater;
+    }
+
+    public void release(ContentCoding coding, Deflater deflater) {
+        deflater.reset();
+        if (!queueFor(coding).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public int idleCount(ContentCoding coding) {
+        return queueFor(coding).size();
+    }
+
+    @PreDestroy
+    public void close() {
+        Deflater deflater;
+        while ((deflater = gzipDeflaters.poll()) != null) {
+            deflater.end();
+        }
+        while ((deflater = zlibDeflaters.poll()) != null) {
+            deflater.end();
+        }
+        log.debug("Deflater pool drained");
+    }
+
+    private BlockingQueue<Deflater> queueFor(ContentCoding coding) {
+        return coding == ContentCoding.GZIP ? gzipDeflaters : zlibDeflaters;
+    }
+}
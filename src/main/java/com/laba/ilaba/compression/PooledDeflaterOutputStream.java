@@ -0,0 +1,92 @@
+package com.laba.ilaba.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Deflater stream that borrows its {@link java.util.zip.Deflater} from a {@link DeflaterPool} and
+ * hands it back on {@link #finish()}. For gzip it writes the header and CRC/size trailer itself,
+ * which {@link java.util.zip.GZIPOutputStream} cannot do with a caller-supplied deflater.
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0};
+
+    private final DeflaterPool pool;
+    private final ContentCoding coding;
+    private final CRC32 crc;
+    private boolean finished;
+
+    public PooledDeflaterOutputStream(OutputStream out, ContentCoding coding, DeflaterPool pool) throws IOException {
+        super(out, pool.borrow(coding), 8192);
+        this.pool = pool;
+        this.coding = coding;
+        if (coding == ContentCoding.GZIP) {
+            this.crc = new CRC32();
+            out.write(GZIP_HEADER);
+        } else {
+            this.crc = null;
+        }
+    }
+
+    public static byte[] compress(byte[] body, ContentCoding coding, DeflaterPool pool) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (PooledDeflaterOutputStream stream = new PooledDeflaterOutputStream(buffer, coding, pool)) {
+            stream.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        super.finish();
+        if (crc != null) {
+            writeIntLe((int) crc.getValue());
+            writeIntLe((int) def.getBytesRead());
+        }
+        finished = true;
+        pool.release(coding, def);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            abort();
+        }
+    }
+
+    /**
+     * Gives the stream up after a failed write without finishing or closing the underlying stream.
+     * Does nothing once the stream has finished.
+     */
+    public void abort() {
+        if (!finished) {
+            // the deflater is in an unknown state after a failed write, don't put it back
+            finished = true;
+            def.end();
+        }
+    }
+
+    private void writeIntLe(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
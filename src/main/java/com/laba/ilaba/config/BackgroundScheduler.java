@@ -0,0 +1,63 @@
+package com.laba.ilaba.config;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler for periodic background work. Tasks are wrapped so that an exception is logged
+ * instead of silently cancelling all further runs of the task.
+ */
+@ApplicationScoped
+@Slf4j
+public class BackgroundScheduler {
+
+    private final ScheduledExecutorService executor;
+
+    public BackgroundScheduler() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(
+                Integer.getInteger("ilaba.scheduler.threads", 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ilaba-background-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        log.info("Scheduling background task '{}' every {} {}", name, delay, unit);
+        return executor.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Background task '{}' failed", name, e);
+            }
+        }, initialDelay, delay, unit);
+    }
+
+    /**
+     * Runs {@code task} once after {@code delay}, logging rather than propagating its failure.
+     */
+    public ScheduledFuture<?> schedule(String name, Runnable task, long delay, TimeUnit unit) {
+        return executor.schedule(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Background task '{}' failed", name, e);
+            }
+        }, delay, unit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        log.info("Background scheduler stopped");
+    }
+}
@@ -1,5 +1,6 @@
 package com.laba.ilaba.config;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.enterprise.inject.Disposes;
@@ -8,16 +9,69 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @ApplicationScoped
 @Slf4j
 public class EntityManagerProducer {
 
+    private static final String READ_ONLY_SESSION = "default-readonly";
+
     private final EntityManagerFactory emf;
 
+    private final EntityManagerFactory readOnlyEmf;
+
     public EntityManagerProducer() {
         this.emf = Persistence.createEntityManagerFactory("default");
         log.info("EntityManagerFactory created for persistence unit 'default'");
+        Map<String, Object> properties = emf.getProperties();
+        new SchemaMigrator(
+                (String) properties.get(PersistenceUnitProperties.JDBC_URL),
+                (String) properties.get(PersistenceUnitProperties.JDBC_USER),
+                (String) properties.get(PersistenceUnitProperties.JDBC_PASSWORD)).migrate();
+        this.readOnlyEmf = Persistence.createEntityManagerFactory("default", readOnlyProperties());
+        log.info("Read-only EntityManagerFactory created for persistence unit 'default'");
+    }
+
+    /**
+     * The read-only factory is a second session of the same unit with its own connection pool and shared
+     * cache, pointed at {@code ilaba.db.read-url} when set (the primary otherwise). It never touches the
+     * schema.
+     * <p>
+     * Against a replica the session caches nothing, neither entities nor query results: a read that
+     * lags a write evicted by {@code EntityCacheManager} would put the old row back in the cache, with
+     * no expiry to ever drop it again.
+     */
+    private static Map<String, Object> readOnlyProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.SESSION_NAME, READ_ONLY_SESSION);
+        properties.put(PersistenceUnitProperties.SCHEMA_GENERATION_DATABASE_ACTION,
+                PersistenceUnitProperties.SCHEMA_GENERATION_NONE_ACTION);
+        String readUrl = System.getProperty("ilaba.db.read-url");
+        if (readUrl != null && !readUrl.isBlank()) {
+            properties.put(PersistenceUnitProperties.JDBC_URL, readUrl);
+            properties.put(PersistenceUnitProperties.JDBC_USER,
+                    System.getProperty("ilaba.db.read-user", "postgres"));
+            properties.put(PersistenceUnitProperties.JDBC_PASSWORD,
+                    System.getProperty("ilaba.db.read-password", "postgres"));
+            properties.put(PersistenceUnitProperties.CACHE_SHARED_DEFAULT, "false");
+            properties.put(PersistenceUnitProperties.SESSION_CUSTOMIZER, ReplicaSessionCustomizer.class.getName());
+        }
+        return properties;
+    }
+
+    @Produces
+    public EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    @Produces
+    @ReadOnly
+    public EntityManagerFactory getReadOnlyEntityManagerFactory() {
+        return readOnlyEmf;
     }
 
     @Produces
@@ -28,10 +82,35 @@ public class EntityManagerProducer {
         return em;
     }
 
+    /**
+     * Reads go to the replica unless the request has to see its own writes, see {@link ReadRoutingFilter}.
+     */
+    @Produces
+    @ReadOnly
+    @RequestScoped
+    public EntityManager createReadOnlyEntityManager(ReadRouting readRouting) {
+        EntityManager em = (readRouting.isPrimary() ? emf : readOnlyEmf).createEntityManager();
+        log.debug("Read-only EntityManager created (primary={})", readRouting.isPrimary());
+        return em;
+    }
+
     public void closeEntityManager(@Disposes EntityManager em) {
         if (em.isOpen()) {
             em.close();
             log.debug("EntityManager closed");
         }
     }
-}
\ No newline at end of file
+
+    public void closeReadOnlyEntityManager(@Disposes @ReadOnly EntityManager em) {
+        if (em.isOpen()) {
+            em.close();
+            log.debug("Read-only EntityManager closed");
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        readOnlyEmf.close();
+        emf.close();
+    }
+}
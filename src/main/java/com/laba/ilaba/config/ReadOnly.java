@@ -0,0 +1,19 @@
+package com.laba.ilaba.config;
+
+import jakarta.inject.Qualifier;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the read-only {@link jakarta.persistence.EntityManager} (and its factory), which is backed by
+ * the read replica unless the current request has to read its own writes. Entities obtained through it
+ * may be shared cache instances and must never be modified.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE})
+public @interface ReadOnly {
+}
@@ -0,0 +1,21 @@
+package com.laba.ilaba.config;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Per-request decision of where {@link ReadOnly} reads go. Set by {@link ReadRoutingFilter} before the
+ * resource method runs, i.e. before the read-only {@link jakarta.persistence.EntityManager} is created.
+ */
+@RequestScoped
+public class ReadRouting {
+
+    private boolean primary;
+
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    public void usePrimary() {
+        this.primary = true;
+    }
+}
@@ -0,0 +1,65 @@
+package com.laba.ilaba.config;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.security.Principal;
+
+/**
+ * Routes an authenticated user's reads to the primary while they are within their
+ * {@link WriteStickiness} window, and opens that window after each successful non-GET request,
+ * handing the client the cookie that carries it to whichever node serves its next read.
+ * Runs after authentication so the principal is known.
+ */
+@Provider
+@Priority(Priorities.USER + 100)
+public class ReadRoutingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    @Inject
+    private WriteStickiness writeStickiness;
+
+    @Inject
+    private ReadRouting readRouting;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        String user = user(requestContext);
+        if (user != null && writeStickiness.isSticky(user, requestContext.getCookies().get(WriteStickiness.COOKIE))) {
+            readRouting.usePrimary();
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        String method = requestContext.getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return;
+        }
+        if (responseContext.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            return;
+        }
+        String user = user(requestContext);
+        if (user == null) {
+            return;
+        }
+        NewCookie cookie = writeStickiness.recordWrite(user);
+        if (cookie != null) {
+            responseContext.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+        }
+    }
+
+    private static String user(ContainerRequestContext requestContext) {
+        Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+        return principal != null ? principal.getName() : null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.laba.ilaba.config;
+
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.queries.ReadQuery;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.List;
+
+/**
+ * Turns off the query results caches of the named queries in the session reading from the replica.
+ * Named queries are only complete after login, so the caches are switched off then.
+ */
+public class ReplicaSessionCustomizer implements SessionCustomizer {
+
+    @Override
+    public void customize(Session session) {
+        session.getEventManager().addListener(new SessionEventAdapter() {
+            @Override
+            public void postLogin(SessionEvent event) {
+                for (List<DatabaseQuery> queries : event.getSession().getQueries().values()) {
+                    for (DatabaseQuery query : queries) {
+                        if (query instanceof ReadQuery readQuery) {
+                            readQuery.setQueryResultsCachePolicy(null);
+                        }
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package com.laba.ilaba.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the versioned SQL migrations listed in {@code db/migration/migrations.txt}, in order, before
+ * the persistence unit is used. Each file is named {@code V<version>__<description>.sql} and runs in its
+ * own transaction; applied versions are recorded in {@code schema_migrations} with a SHA-256 checksum,
+ * and startup fails if an applied file has since been edited. A session advisory lock keeps nodes that
+ * boot at the same time from migrating concurrently.
+ */
+@Slf4j
+public class SchemaMigrator {
+
+    static final String LOCATION = "db/migration/";
+
+    private static final long MIGRATION_LOCK_KEY = 0x696c6162_6d6967L;
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    public SchemaMigrator(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    public void migrate() {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + MIGRATION_LOCK_KEY + ")");
+            }
+            try {
+                migrate(connection);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + MIGRATION_LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed", e);
+        }
+    }
+
+    private void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version INTEGER PRIMARY KEY, "
+                    + "description VARCHAR(255) NOT NULL, "
+                    + "checksum CHAR(64) NOT NULL, "
+                    + "applied_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now())");
+        }
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getString(2));
+            }
+        }
+
+        int count = 0;
+        for (Migration migration : loadMigrations()) {
+            String appliedChecksum = applied.get(migration.version());
+            if (appliedChecksum != null) {
+                if (!appliedChecksum.equals(migration.checksum())) {
+                    throw new IllegalStateException("Migration V" + migration.version()
+                            + " was modified after it was applied (checksum " + appliedChecksum
+                            + ", now " + migration.checksum() + ")");
+                }
+                continue;
+            }
+            apply(connection, migration);
+            count++;
+        }
+        log.info("Schema is up to date ({} migrations applied now, {} before)", count, applied.size());
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        log.info("Applying migration V{}: {}", migration.version(), migration.description());
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : splitStatements(migration.sql())) {
+                    statement.execute(sql);
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setString(3, migration.checksum());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    static List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        int previousVersion = 0;
+        for (String fileName : readResource(LOCATION + "migrations.txt").lines()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList())) {
+            Migration migration = Migration.of(fileName, readResource(LOCATION + fileName));
+            if (migration.version() <= previousVersion) {
+                throw new IllegalStateException("Migrations must be listed in ascending version order: " + fileName);
+            }
+            previousVersion = migration.version();
+            migrations.add(migration);
+        }
+        return migrations;
+    }
+
+    /**
+     * Splits a script on semicolons that end a line, except inside {@code $$}-quoted bodies such as
+     * {@code DO} blocks. Migrations keep to that layout, which leaves semicolons inside string literals
+     * alone.
+     */
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inDollarQuote = false;
+        for (String line : sql.lines().collect(Collectors.toList())) {
+            String trimmed = line.strip();
+            if (!inDollarQuote && (trimmed.startsWith("--") || (trimmed.isEmpty() && current.length() == 0))) {
+                continue;
+            }
+            current.append(line).append('\n');
+            for (int at = line.indexOf("$$"); at >= 0; at = line.indexOf("$$", at + 2)) {
+                inDollarQuote = !inDollarQuote;
+            }
+            if (!inDollarQuote && trimmed.endsWith(";")) {
+                String statement = current.toString().strip();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().strip());
+        }
+        return statements;
+    }
+
+    private static String readResource(String name) {
+        InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("Migration resource not found: " + name);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Migration(int version, String description, String sql, String checksum) {
+
+        static Migration of(String fileName, String sql) {
+            if (!fileName.matches("V\\d+__\\w+\\.sql")) {
+                throw new IllegalStateException("Invalid migration file name: " + fileName);
+            }
+            int separator = fileName.indexOf("__");
+            int version = Integer.parseInt(fileName.substring(1, separator));
+            String description = fileName.substring(separator + 2, fileName.length() - 4).replace('_', ' ');
+            return new Migration(version, description, sql, sha256(sql));
+        }
+
+        private static String sha256(String sql) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.laba.ilaba.config;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.NewCookie;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently. For {@code ilaba.read.sticky-millis} (default 5000) after a
+ * successful write a user's reads go to the primary, so replication lag never hides their own changes,
+ * such as a just created order.
+ * <p>
+ * The window travels with the client as the {@value #COOKIE} cookie holding its end in epoch millis,
+ * so it holds whichever node behind the load balancer serves the next read. Nodes compare it with their
+ * own clock, which only needs to be within a fraction of the window of the writer's. A forged cookie
+ * can do no more than send its own reads to the primary. The node-local map still covers clients that
+ * do not keep cookies, but only on the node that took the write.
+ */
+@ApplicationScoped
+public class WriteStickiness {
+
+    public static final String COOKIE = "ilabaPrimaryUntil";
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long windowMillis = Long.getLong("ilaba.read.sticky-millis", 5000);
+
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the user's window and returns the cookie that carries it, or {@code null} when stickiness
+     * is disabled.
+     */
+    public NewCookie recordWrite(String user) {
+        if (windowMillis <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long until = now + windowMillis;
+        stickyUntil.put(user, until);
+        if (stickyUntil.size() > PRUNE_THRESHOLD) {
+            prune(now);
+        }
+        return new NewCookie.Builder(COOKIE)
+                .value(Long.toString(until))
+                .path("/")
+                .maxAge((int) Math.max(1, (windowMillis + 999) / 1000))
+                .httpOnly(true)
+                .build();
+    }
+
+    /**
+     * Whether the user's reads go to the primary, given the {@value #COOKIE} cookie of the request,
+     * if any.
+     */
+    public boolean isSticky(String user, Cookie cookie) {
+        long now = System.currentTimeMillis();
+        if (cookie != null && until(cookie.getValue()) >= now) {
+            return true;
+        }
+        Long until = stickyUntil.get(user);
+        if (until == null) {
+            return false;
+        }
+        if (until < now) {
+            stickyUntil.remove(user, until);
+            return false;
+        }
+        return true;
+    }
+
+    private static long until(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void prune(long now) {
+        for (Iterator<Long> until = stickyUntil.values().iterator(); until.hasNext(); ) {
+            if (until.next() < now) {
+                until.remove();
+            }
+        }
+    }
+}
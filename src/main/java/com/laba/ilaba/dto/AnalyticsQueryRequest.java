@@ -0,0 +1,31 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Query spec for {@code POST /analytics/query}: all filters must match, matching orders are grouped
+ * by {@code groupBy} (one group when absent) and every group gets the same set of aggregates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQueryRequest {
+    private List<Filter> filters;
+    private String groupBy;
+    private BigDecimal bandWidth; // width of a priceBand group, in currency units
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private String field;
+        private String op; // eq, in, gt, gte, lt, lte
+        private String value;
+        private List<String> values; // for in
+    }
+}
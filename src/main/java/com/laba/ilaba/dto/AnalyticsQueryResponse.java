@@ -0,0 +1,33 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsQueryResponse {
+    private int scanned;
+    private long matched;
+    private long tookMicros;
+    private Instant snapshotLoadedAt;
+    private String groupBy;
+    private List<Group> groups; // non-empty groups only, in key order
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+        private String key;
+        private long orders;
+        private double avgDays;
+        private BigDecimal avgPrice;
+        private BigDecimal revenue; // PAID, ACTIVE and COMPLETED orders
+        private double rejectionRate;
+    }
+}
@@ -0,0 +1,17 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BootstrapResponse {
+    private UserResponse user;
+    private OrderResponse currentOrder; // null when the user has no active order
+    private Object availableCars; // List<CarResponse>, or the catalog's pre-rendered JSON array
+    private List<String> unavailable; // parts that failed or timed out and are left null
+}
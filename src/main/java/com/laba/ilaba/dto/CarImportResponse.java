@@ -0,0 +1,24 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportResponse {
+    private int imported;
+    private int failed;
+    private List<RowError> errors; // capped, "failed" has the full count
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row; // 1-based position in the array, or data line in the CSV
+        private String message;
+    }
+}
@@ -27,6 +27,20 @@ public class CarResponse {
     private String imageUrl;
     private String description;
 
+    /**
+     * Target of the {@link Car#FIND_ALL_RESPONSES} constructor expression.
+     */
+    public CarResponse(Long id, String make, String model, Integer year, BigDecimal pricePerDay,
+                       Boolean isAvailable, String currentOrderId) {
+        this.id = id;
+        this.make = make;
+        this.model = model;
+        this.year = year;
+        this.pricePerDay = pricePerDay;
+        this.isAvailable = isAvailable;
+        this.currentOrderId = currentOrderId;
+    }
+
     public static CarResponse fromEntity(Car car) {
         return CarResponse.builder()
                 .id(car.getId())
@@ -0,0 +1,16 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSuggestion {
+    private String text;
+    private String make;
+    private String model; // null when the suggestion is a make
+    private int cars;
+    private int available;
+}
@@ -0,0 +1,21 @@
+package com.laba.ilaba.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeResponse {
+    private Long seq;
+    private String type; // "car" or "order"
+    private Long id;
+    private String op; // "upsert" or "delete"; deletes carry no entity
+    private CarResponse car;
+    private OrderResponse order;
+}
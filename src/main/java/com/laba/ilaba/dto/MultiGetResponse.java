@@ -0,0 +1,15 @@
+package com.laba.ilaba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+    private List<T> items; // in the order the ids were requested
+    private List<Long> missing;
+}
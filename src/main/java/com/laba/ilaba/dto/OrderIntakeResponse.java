@@ -0,0 +1,21 @@
+package com.laba.ilaba.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderIntakeResponse {
+    private Long id;
+    private State state;
+    private String statusUrl; // GET here returns the order once it is written
+    private String error;
+
+    public enum State {
+        QUEUED, FAILED
+    }
+}
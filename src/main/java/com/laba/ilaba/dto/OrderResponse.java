@@ -1,6 +1,7 @@
 package com.laba.ilaba.dto;
 
 import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -33,4 +34,22 @@ public class OrderResponse {
                 .totalPrice(order.getTotalPrice())
                 .build();
     }
+
+    /**
+     * Builds a response from a row of {@link Order#FIND_ALL_ROWS}. Car and user are {@code null} when
+     * the order has been detached from them.
+     */
+    public static OrderResponse fromRow(Object[] row) {
+        return OrderResponse.builder()
+                .id((Long) row[0])
+                .startDate((LocalDate) row[1])
+                .endDate((LocalDate) row[2])
+                .status(((Order.Status) row[3]).name().toLowerCase())
+                .totalPrice((BigDecimal) row[4])
+                .car(row[5] != null ? new CarResponse((Long) row[5], (String) row[6], (String) row[7],
+                        (Integer) row[8], (BigDecimal) row[9], (Boolean) row[10], (String) row[11]) : null)
+                .user(row[12] != null ? new UserResponse((Long) row[12], (String) row[13], (String) row[14],
+                        (User.Role) row[15]) : null)
+                .build();
+    }
 }
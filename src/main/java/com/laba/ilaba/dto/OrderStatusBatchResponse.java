@@ -0,0 +1,28 @@
+package com.laba.ilaba.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusBatchResponse {
+    private int updated;
+    private int failed;
+    private List<ItemResult> results; // same order as the request
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private Long id;
+        private int status; // HTTP status the single-order PATCH would have returned
+        private OrderResponse order;
+        private String error;
+    }
+}
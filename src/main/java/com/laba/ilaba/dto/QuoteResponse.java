@@ -0,0 +1,26 @@
+package com.laba.ilaba.dto;
+
+import com.laba.ilaba.service.PricingEngine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteResponse {
+    private Long carId;
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private BigDecimal pricePerDay;
+    private BigDecimal totalPrice; // what POST /orders expects as totalPrice for this car and range
+
+    public static QuoteResponse fromQuote(PricingEngine.Quote quote) {
+        return new QuoteResponse(quote.carId(), quote.from(), quote.to(), quote.days(),
+                quote.pricePerDay(), quote.total());
+    }
+}
@@ -16,6 +16,16 @@ public class UserResponse {
     private String username;
     private String role;
 
+    /**
+     * Target of the {@link User#FIND_ALL_RESPONSES} constructor expression.
+     */
+    public UserResponse(Long id, String email, String username, User.Role role) {
+        this.id = id;
+        this.email = email;
+        this.username = username;
+        this.role = role.name();
+    }
+
     public static UserResponse fromEntity(User user) {
         return UserResponse.builder()
                 .id(user.getId())
@@ -5,21 +5,49 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "cars")
+@NamedQuery(name = Car.FIND_ALL, query = "SELECT c FROM Car c")
+@NamedQuery(name = Car.FIND_ALL_RESPONSES, query = "SELECT NEW com.laba.ilaba.dto.CarResponse("
+        + "c.id, c.make, c.model, c.year, c.pricePerDay, c.isAvailable, c.currentOrderId) FROM Car c")
+@NamedQuery(name = Car.FIND_BY_IDS, query = "SELECT c FROM Car c WHERE c.id IN :ids")
+@NamedQuery(name = Car.FIND_AVAILABLE, query = "SELECT c FROM Car c WHERE c.isAvailable = true", hints = {
+        @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE, value = HintValues.TRUE),
+        @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_EXPIRY, value = "60000"),
+        // Keep "true" as a literal in the SQL so PostgreSQL can match the partial index on available cars.
+        @QueryHint(name = QueryHints.BIND_PARAMETERS, value = HintValues.FALSE)
+})
+@NamedNativeQuery(name = Car.RELEASE_IF_NO_OPEN_ORDER,
+        query = "UPDATE cars SET isavailable = true, currentorderid = NULL, version = version + 1 "
+                + "WHERE id = ANY(CAST(?1 AS bigint[])) AND NOT isavailable "
+                + "AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.car_id = cars.id "
+                + "AND o.status IN ('PENDING', 'PAID', 'ACTIVE')) "
+                + "RETURNING id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Car {
 
+    public static final String FIND_ALL = "Car.findAll";
+    public static final String FIND_ALL_RESPONSES = "Car.findAllResponses";
+    public static final String FIND_BY_IDS = "Car.findByIds";
+    public static final String FIND_AVAILABLE = "Car.findAvailable";
+    public static final String RELEASE_IF_NO_OPEN_ORDER = "Car.releaseIfNoOpenOrder";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "cars_id_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     @Column(nullable = false)
     private String make;
 
@@ -0,0 +1,56 @@
+package com.laba.ilaba.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "change_log")
+@NamedQuery(name = ChangeLogEntry.FIND_SINCE,
+        query = "SELECT c FROM ChangeLogEntry c WHERE c.seq > :since ORDER BY c.seq")
+@NamedQuery(name = ChangeLogEntry.MAX_SEQ, query = "SELECT COALESCE(MAX(c.seq), 0) FROM ChangeLogEntry c")
+@NamedNativeQuery(name = ChangeLogEntry.APPEND,
+        query = "INSERT INTO change_log (entity_type, entity_id, op, changed_at) "
+                + "SELECT ?1, ids.id, ?2, clock_timestamp() "
+                + "FROM (SELECT pg_advisory_xact_lock(?3)) append_lock, "
+                + "unnest(CAST(?4 AS bigint[])) AS ids(id)")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogEntry {
+
+    public static final String FIND_SINCE = "ChangeLogEntry.findSince";
+    public static final String MAX_SEQ = "ChangeLogEntry.maxSeq";
+    public static final String APPEND = "ChangeLogEntry.append";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(name = "entity_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "op", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public enum EntityType {
+        CAR, ORDER
+    }
+
+    public enum Operation {
+        UPSERT, DELETE
+    }
+}
@@ -0,0 +1,62 @@
+package com.laba.ilaba.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@NamedQuery(name = IdempotencyRecord.FIND_LIVE,
+        query = "SELECT r FROM IdempotencyRecord r WHERE r.scopeKey = :scopeKey AND r.expiresAt > CURRENT_TIMESTAMP")
+@NamedNativeQuery(name = IdempotencyRecord.CLAIM,
+        query = "INSERT INTO idempotency_keys (scope_key, request_hash, created_at, expires_at) "
+                + "VALUES (?1, ?2, LOCALTIMESTAMP, LOCALTIMESTAMP + CAST(?3 AS integer) * INTERVAL '1 second') "
+                + "ON CONFLICT (scope_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, status_code = NULL, "
+                + "body = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+                + "WHERE idempotency_keys.expires_at <= LOCALTIMESTAMP")
+@NamedNativeQuery(name = IdempotencyRecord.COMPLETE,
+        query = "UPDATE idempotency_keys SET status_code = ?2, body = ?3, "
+                + "expires_at = LOCALTIMESTAMP + CAST(?4 AS integer) * INTERVAL '1 second' "
+                + "WHERE scope_key = ?1 AND status_code IS NULL")
+@NamedNativeQuery(name = IdempotencyRecord.RELEASE,
+        query = "DELETE FROM idempotency_keys WHERE scope_key = ?1 AND status_code IS NULL")
+@NamedNativeQuery(name = IdempotencyRecord.PURGE_EXPIRED,
+        query = "DELETE FROM idempotency_keys WHERE scope_key IN ("
+                + "SELECT scope_key FROM idempotency_keys WHERE expires_at <= LOCALTIMESTAMP LIMIT ?1)")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    public static final String FIND_LIVE = "IdempotencyRecord.findLive";
+    public static final String CLAIM = "IdempotencyRecord.claim";
+    public static final String COMPLETE = "IdempotencyRecord.complete";
+    public static final String RELEASE = "IdempotencyRecord.release";
+    public static final String PURGE_EXPIRED = "IdempotencyRecord.purgeExpired";
+
+    /** SHA-256 of the user and the client's key, so keys of different users never collide. */
+    @Id
+    @Column(name = "scope_key", length = 64)
+    private String scopeKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /** Null while the request is still running. */
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "body")
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -11,14 +11,85 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "orders")
+@NamedQuery(name = Order.FIND_ALL, query = "SELECT o FROM Order o")
+@NamedQuery(name = Order.FIND_ALL_ROWS, query = "SELECT o.id, o.startDate, o.endDate, o.status, o.totalPrice, "
+        + "c.id, c.make, c.model, c.year, c.pricePerDay, c.isAvailable, c.currentOrderId, "
+        + "u.id, u.email, u.username, u.role "
+        + "FROM Order o LEFT JOIN o.carDto c LEFT JOIN o.userDto u")
+@NamedQuery(name = Order.FIND_BY_IDS,
+        query = "SELECT o FROM Order o LEFT JOIN FETCH o.carDto LEFT JOIN FETCH o.userDto WHERE o.id IN :ids")
+@NamedQuery(name = Order.FIND_BY_USER, query = "SELECT o FROM Order o WHERE o.userDto = :user")
+@NamedQuery(name = Order.FIND_BY_USER_AND_STATUSES,
+        query = "SELECT o FROM Order o WHERE o.userDto = :user AND o.status IN :statuses")
+@NamedQuery(name = Order.FIND_BY_CAR, query = "SELECT o FROM Order o WHERE o.carDto = :car")
+@NamedNativeQuery(name = Order.FIND_ARCHIVED_BY_IDS, resultClass = Order.class,
+        query = "SELECT " + Order.COLUMNS + " FROM orders_archive WHERE id = ANY(CAST(?1 AS bigint[]))")
+@NamedNativeQuery(name = Order.FIND_ARCHIVED_BY_USER, resultClass = Order.class,
+        query = "SELECT " + Order.COLUMNS + " FROM orders_archive WHERE user_id = ?1 ORDER BY id")
+@NamedNativeQuery(name = Order.COMPLETE_ENDED,
+        query = "WITH due AS ("
+                + "SELECT id, created_at, status FROM orders WHERE status IN ('PAID', 'ACTIVE') AND end_date < ?1 "
+                + "LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+                + "UPDATE orders o SET status = 'COMPLETED' FROM due "
+                + "WHERE o.id = due.id AND o.created_at = due.created_at "
+                + "RETURNING o.id, o.car_id, due.status, o.start_date, o.end_date, o.total_price")
+@NamedNativeQuery(name = Order.ACTIVATE_STARTED,
+        query = "WITH due AS ("
+                + "SELECT id, created_at, status FROM orders WHERE status = 'PAID' AND start_date <= ?1 AND end_date >= ?1 "
+                + "LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+                + "UPDATE orders o SET status = 'ACTIVE' FROM due "
+                + "WHERE o.id = due.id AND o.created_at = due.created_at "
+                + "RETURNING o.id, o.car_id, due.status, o.start_date, o.end_date, o.total_price")
+@NamedNativeQuery(name = Order.EXPIRE_UNPAID,
+        query = "WITH due AS ("
+                + "SELECT id, created_at, status, car_id FROM orders WHERE status = 'PENDING' AND start_date < ?1 "
+                + "LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+                + "UPDATE orders o SET status = 'REJECTED', car_id = NULL, user_id = NULL FROM due "
+                + "WHERE o.id = due.id AND o.created_at = due.created_at "
+                + "RETURNING o.id, due.car_id, due.status, o.start_date, o.end_date, o.total_price")
+@NamedNativeQuery(name = Order.ARCHIVE_CLOSED,
+        query = "WITH moved AS ("
+                + "DELETE FROM orders WHERE (id, created_at) IN ("
+                + "SELECT id, created_at FROM orders "
+                + "WHERE status IN ('COMPLETED', 'REJECTED') AND created_at < ?1 "
+                + "LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+                + "RETURNING " + Order.COLUMNS + ") "
+                + "INSERT INTO orders_archive (" + Order.COLUMNS + ") SELECT " + Order.COLUMNS + " FROM moved "
+                + "RETURNING id")
+@NamedNativeQuery(name = Order.ID_RANGE,
+        query = "SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), 0) FROM ("
+                + "SELECT id FROM orders UNION ALL SELECT id FROM orders_archive) ids")
+@NamedNativeQuery(name = Order.STATISTICS_ROWS,
+        query = "SELECT car_id, status, start_date, end_date, total_price FROM orders WHERE id >= ?1 AND id < ?2 "
+                + "UNION ALL "
+                + "SELECT car_id, status, start_date, end_date, total_price FROM orders_archive WHERE id >= ?1 AND id < ?2")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Order {
 
+    public static final String FIND_ALL = "Order.findAll";
+    public static final String FIND_ALL_ROWS = "Order.findAllRows";
+    public static final String FIND_BY_IDS = "Order.findByIds";
+    public static final String FIND_BY_USER = "Order.findByUser";
+    public static final String FIND_BY_USER_AND_STATUSES = "Order.findByUserAndStatuses";
+    public static final String FIND_BY_CAR = "Order.findByCar";
+    public static final String FIND_ARCHIVED_BY_IDS = "Order.findArchivedByIds";
+    public static final String FIND_ARCHIVED_BY_USER = "Order.findArchivedByUser";
+    public static final String ARCHIVE_CLOSED = "Order.archiveClosed";
+    public static final String COMPLETE_ENDED = "Order.completeEnded";
+    public static final String ACTIVATE_STARTED = "Order.activateStarted";
+    public static final String EXPIRE_UNPAID = "Order.expireUnpaid";
+    public static final String ID_RANGE = "Order.idRange";
+    public static final String STATISTICS_ROWS = "Order.statisticsRows";
+
+    /** Column list shared by the hot and archive tables, in declaration order. */
+    public static final String COLUMNS = "id, user_id, car_id, start_date, end_date, total_price, status, created_at";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
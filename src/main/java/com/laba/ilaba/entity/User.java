@@ -5,19 +5,38 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 @Entity
 @Table(name = "users")
+@NamedQuery(name = User.FIND_ALL, query = "SELECT u FROM User u")
+@NamedQuery(name = User.FIND_ALL_RESPONSES,
+        query = "SELECT NEW com.laba.ilaba.dto.UserResponse(u.id, u.email, u.username, u.role) FROM User u")
+@NamedQuery(name = User.COUNT_BY_EMAIL, query = "SELECT COUNT(u) FROM User u WHERE u.email = :email")
+@NamedQuery(name = User.FIND_BY_EMAIL, query = "SELECT u FROM User u WHERE u.email = :email", hints = {
+        @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE, value = HintValues.TRUE),
+        @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_SIZE, value = "5000"),
+        @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_EXPIRY, value = "60000")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class User {
 
+    public static final String FIND_ALL = "User.findAll";
+    public static final String FIND_ALL_RESPONSES = "User.findAllResponses";
+    public static final String COUNT_BY_EMAIL = "User.countByEmail";
+    public static final String FIND_BY_EMAIL = "User.findByEmail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private Long version;
+
     @Column(unique = true, nullable = false)
     private String email;
 
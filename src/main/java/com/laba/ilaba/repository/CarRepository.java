@@ -1,6 +1,10 @@
 package com.laba.ilaba.repository;
 
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.dto.CarResponse;
 import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
 import com.laba.ilaba.entity.User;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -8,23 +12,62 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.CacheUsage;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.Optional;
 
 @ApplicationScoped
 @Slf4j
 public class CarRepository {
 
+    static final int IN_CHUNK_SIZE = 500;
+
+    static final Map<String, Object> READ_ONLY = Map.of(QueryHints.READ_ONLY, HintValues.TRUE);
+
+    private static final Map<String, Object> CACHE_ONLY = Map.of(
+            QueryHints.CACHE_USAGE, CacheUsage.CheckCacheOnly,
+            QueryHints.READ_ONLY, HintValues.TRUE);
+
     @Inject
     private EntityManager entityManager;
 
+    @Inject
+    @ReadOnly
+    private EntityManager readEntityManager;
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
     @Inject
     public CarRepository(EntityManager entityManager) {
         this.entityManager = entityManager;
     }
 
     public Optional<Car> findById(Long id) {
+        try {
+            Car car = readEntityManager.find(Car.class, id, READ_ONLY);
+            return Optional.ofNullable(car);
+        } catch (Exception e) {
+            log.error("Error finding car by id: {}", id, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads a car through the primary {@link EntityManager}, for callers that are going to modify it or
+     * reference it from another entity.
+     */
+    public Optional<Car> findByIdForWrite(Long id) {
         try {
             Car car = entityManager.find(Car.class, id);
             return Optional.ofNullable(car);
@@ -34,9 +77,23 @@ public class CarRepository {
         }
     }
 
+    /**
+     * All cars as response DTOs, built by the query from the needed columns without materializing entities.
+     */
+    public List<CarResponse> findAllResponses() {
+        try {
+            return readEntityManager.createNamedQuery(Car.FIND_ALL_RESPONSES, CarResponse.class)
+                    .getResultList();
+        } catch (Exception e) {
+            log.error("Error finding all cars", e);
+            return List.of();
+        }
+    }
+
     public List<Car> findAll() {
         try {
-            return entityManager.createQuery("SELECT c FROM Car c", Car.class)
+            return readEntityManager.createNamedQuery(Car.FIND_ALL, Car.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
         } catch (Exception e) {
             log.error("Error finding all cars", e);
@@ -44,10 +101,61 @@ public class CarRepository {
         }
     }
 
+    /**
+     * All cars, read through the given {@link EntityManager} for callers that manage their own one.
+     */
+    public List<Car> findAll(EntityManager em) {
+        return em.createNamedQuery(Car.FIND_ALL, Car.class)
+                .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                .getResultList();
+    }
+
+    /**
+     * Resolves many ids at once. Cars already in the cache are taken from there, the
+     * rest are loaded with one {@code IN} query per {@value #IN_CHUNK_SIZE} ids. Ids that do not
+     * exist are simply absent from the result, which is in no particular order. A failed query is
+     * thrown, not reported as an empty result: callers treat absent ids as deleted.
+     */
+    public List<Car> findAllById(Collection<Long> ids) {
+        List<Car> cars = new ArrayList<>(ids.size());
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            Car cached = readEntityManager.find(Car.class, id, CACHE_ONLY);
+            if (cached != null) {
+                cars.add(cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = misses.subList(from, Math.min(from + IN_CHUNK_SIZE, misses.size()));
+            cars.addAll(readEntityManager.createNamedQuery(Car.FIND_BY_IDS, Car.class)
+                    .setParameter("ids", chunk)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                    .getResultList());
+        }
+        return cars;
+    }
+
+    /**
+     * Loads cars for modification through the given {@link EntityManager}, one {@code IN} query per
+     * {@value #IN_CHUNK_SIZE} ids, for callers that manage their own one.
+     */
+    public List<Car> findAllByIdForWrite(EntityManager em, Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<Car> cars = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += IN_CHUNK_SIZE) {
+            cars.addAll(em.createNamedQuery(Car.FIND_BY_IDS, Car.class)
+                    .setParameter("ids", idList.subList(from, Math.min(from + IN_CHUNK_SIZE, idList.size())))
+                    .getResultList());
+        }
+        return cars;
+    }
+
     public List<Car> findAvailableCars() {
         try {
-            return entityManager.createQuery(
-                    "SELECT c FROM Car c WHERE c.isAvailable = true", Car.class)
+            return readEntityManager.createNamedQuery(Car.FIND_AVAILABLE, Car.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
         } catch (Exception e) {
             log.error("Error finding available cars", e);
@@ -55,6 +163,28 @@ public class CarRepository {
         }
     }
 
+    /**
+     * Marks the given cars available again unless they still have an open order, in the caller's
+     * transaction on {@code em}. Bypasses the persistence context, so callers must invalidate the cache
+     * after commit, see {@link EntityCacheManager#carsChangedById(Collection)}.
+     *
+     * @return ids of the cars that were released
+     */
+    public List<Long> releaseCars(EntityManager em, Collection<Long> carIds) {
+        if (carIds.isEmpty()) {
+            return List.of();
+        }
+        String idArray = carIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        List<?> rows = em.createNamedQuery(Car.RELEASE_IF_NO_OPEN_ORDER)
+                .setParameter(1, idArray)
+                .getResultList();
+        List<Long> released = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            released.add(((Number) row).longValue());
+        }
+        return released;
+    }
+
     public Car save(Car car) {
         try {
             if (car.getId() == null) {
@@ -62,14 +192,18 @@ public class CarRepository {
                 transaction.begin();
                 entityManager.persist(car);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT, List.of(car.getId()));
                 transaction.commit();
+                entityCacheManager.carChanged(car);
                 return car;
             } else {
                 EntityTransaction transaction = entityManager.getTransaction();
                 transaction.begin();
                 Car mergedCar = entityManager.merge(car);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT, List.of(mergedCar.getId()));
                 transaction.commit();
+                entityCacheManager.carChanged(mergedCar);
                 return mergedCar;
             }
         } catch (Exception e) {
@@ -78,13 +212,43 @@ public class CarRepository {
         }
     }
 
+    /**
+     * Inserts new cars in one transaction. With batch writing enabled the inserts go out as JDBC
+     * batches, and the persistence context is cleared afterwards so a long import does not keep
+     * every car it has written.
+     */
+    public void saveAll(List<Car> cars) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            for (Car car : cars) {
+                entityManager.persist(car);
+            }
+            entityManager.flush();
+            List<Long> ids = cars.stream().map(Car::getId).collect(Collectors.toList());
+            changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT, ids);
+            transaction.commit();
+            entityCacheManager.carsChanged(cars);
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            log.error("Error saving batch of {} cars", cars.size(), e);
+            throw e;
+        } finally {
+            entityManager.clear();
+        }
+    }
+
     public void delete(Car car) {
         try {
             EntityTransaction transaction = entityManager.getTransaction();
             transaction.begin();
             entityManager.remove(entityManager.contains(car) ? car : entityManager.merge(car));
             entityManager.flush();
+            changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.DELETE, List.of(car.getId()));
             transaction.commit();
+            entityCacheManager.carDeleted(car.getId());
         } catch (Exception e) {
             log.error("Error deleting car: {}", car, e);
             throw e;
@@ -99,7 +263,9 @@ public class CarRepository {
                 transaction.begin();
                 entityManager.remove(car);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.DELETE, List.of(id));
                 transaction.commit();
+                entityCacheManager.carDeleted(id);
             }
         } catch (Exception e) {
             log.error("Error deleting car by id: {}", id, e);
@@ -0,0 +1,89 @@
+package com.laba.ilaba.repository;
+
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of car and order mutations behind {@code GET /changes}.
+ * <p>
+ * Rows are written inside the caller's transaction while holding a transaction-scoped advisory lock,
+ * so sequence numbers become visible in the order they were assigned. Without it a transaction that
+ * took seq 10 could commit after one that took seq 11, and a mirror that already synced past 11
+ * would never see 10.
+ */
+@ApplicationScoped
+public class ChangeLogRepository {
+
+    private static final long APPEND_LOCK_KEY = 0x696c6162L;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    @ReadOnly
+    private EntityManager readEntityManager;
+
+    @Inject
+    public ChangeLogRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Records changes through the request's {@link EntityManager}; must be called inside its open transaction.
+     */
+    public void record(ChangeLogEntry.EntityType type, ChangeLogEntry.Operation operation, Collection<Long> ids) {
+        record(entityManager, type, operation, ids);
+    }
+
+    /**
+     * Records changes through the given {@link EntityManager}, for callers that manage their own one.
+     */
+    public void record(EntityManager em, ChangeLogEntry.EntityType type, ChangeLogEntry.Operation operation,
+                       Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String idArray = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        em.createNamedQuery(ChangeLogEntry.APPEND)
+                .setParameter(1, type.name())
+                .setParameter(2, operation.name())
+                .setParameter(3, APPEND_LOCK_KEY)
+                .setParameter(4, idArray)
+                .executeUpdate();
+    }
+
+    /**
+     * Reads from the same replica as the entities the feed then resolves; a replica applies commits in
+     * order, so every change it returns is already visible there.
+     */
+    public List<ChangeLogEntry> findSince(long since, int limit) {
+        return readEntityManager.createNamedQuery(ChangeLogEntry.FIND_SINCE, ChangeLogEntry.class)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Reads changes through the given {@link EntityManager}, for callers that manage their own one.
+     */
+    public List<ChangeLogEntry> findSince(EntityManager em, long since, int limit) {
+        return em.createNamedQuery(ChangeLogEntry.FIND_SINCE, ChangeLogEntry.class)
+                .setParameter("since", since)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Highest seq in the log, or 0 if it is empty.
+     */
+    public long findMaxSeq(EntityManager em) {
+        return ((Number) em.createNamedQuery(ChangeLogEntry.MAX_SEQ).getSingleResult()).longValue();
+    }
+}
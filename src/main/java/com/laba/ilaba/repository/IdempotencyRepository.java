@@ -0,0 +1,93 @@
+package com.laba.ilaba.repository;
+
+import com.laba.ilaba.entity.IdempotencyRecord;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Stored replies behind the {@code Idempotency-Key} header. Every call runs in its own short
+ * transaction on the primary, so a claim is visible to other nodes before the request it guards runs.
+ */
+@ApplicationScoped
+@Slf4j
+public class IdempotencyRepository {
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    public IdempotencyRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Inserts a claim for the key, or takes over an expired row. Returns false when another request
+     * holds a live claim or a live reply is already stored.
+     */
+    public boolean claim(String scopeKey, String requestHash, long leaseSeconds) {
+        return inTransaction(em -> em.createNamedQuery(IdempotencyRecord.CLAIM)
+                .setParameter(1, scopeKey)
+                .setParameter(2, requestHash)
+                .setParameter(3, leaseSeconds)
+                .executeUpdate()) == 1;
+    }
+
+    public Optional<IdempotencyRecord> findLive(String scopeKey) {
+        return entityManager.createNamedQuery(IdempotencyRecord.FIND_LIVE, IdempotencyRecord.class)
+                .setParameter("scopeKey", scopeKey)
+                .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public void complete(String scopeKey, int statusCode, String body, long ttlSeconds) {
+        inTransaction(em -> em.createNamedQuery(IdempotencyRecord.COMPLETE)
+                .setParameter(1, scopeKey)
+                .setParameter(2, statusCode)
+                .setParameter(3, body)
+                .setParameter(4, ttlSeconds)
+                .executeUpdate());
+    }
+
+    /**
+     * Drops an unfinished claim so that a retry can run the request again.
+     */
+    public void release(String scopeKey) {
+        inTransaction(em -> em.createNamedQuery(IdempotencyRecord.RELEASE)
+                .setParameter(1, scopeKey)
+                .executeUpdate());
+    }
+
+    /**
+     * Deletes up to {@code limit} expired rows through the given {@link EntityManager}; must be called
+     * inside its open transaction.
+     */
+    public int purgeExpired(EntityManager em, int limit) {
+        return em.createNamedQuery(IdempotencyRecord.PURGE_EXPIRED)
+                .setParameter(1, limit)
+                .executeUpdate();
+    }
+
+    private int inTransaction(Function<EntityManager, Integer> work) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            int result = work.apply(entityManager);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
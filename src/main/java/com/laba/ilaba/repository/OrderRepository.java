@@ -1,6 +1,10 @@
 package com.laba.ilaba.repository;
 
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.dto.OrderResponse;
 import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
 import com.laba.ilaba.entity.Order;
 import com.laba.ilaba.entity.User;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -9,22 +13,79 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.CacheUsage;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.jpa.JpaHelper;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 @Slf4j
 public class OrderRepository {
+    private static final long PARTITION_LOCK_KEY = 0x696c6162_7061L;
+
+    private static final Map<String, Object> CACHE_ONLY = Map.of(
+            QueryHints.CACHE_USAGE, CacheUsage.CheckCacheOnly,
+            QueryHints.READ_ONLY, HintValues.TRUE);
+
     @Inject
     private EntityManager entityManager;
 
+    @Inject
+    @ReadOnly
+    private EntityManager readEntityManager;
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
     @Inject
     public OrderRepository(EntityManager entityManager) {
         this.entityManager = entityManager;
     }
 
     public Optional<Order> findById(Long id) {
+        return findById(id, false);
+    }
+
+    /**
+     * Looks in the hot {@code orders} table first and, only if asked to and nothing was found there,
+     * in {@code orders_archive}.
+     */
+    public Optional<Order> findById(Long id, boolean includeArchived) {
+        try {
+            Order order = readEntityManager.find(Order.class, id, CarRepository.READ_ONLY);
+            if (order == null && includeArchived) {
+                List<Order> archived = findArchived(List.of(id));
+                order = archived.isEmpty() ? null : archived.get(0);
+            }
+            return Optional.ofNullable(order);
+        } catch (Exception e) {
+            log.error("Error finding order by id: {}", id, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads an order through the primary {@link EntityManager}, see {@link CarRepository#findByIdForWrite(Long)}.
+     */
+    public Optional<Order> findByIdForWrite(Long id) {
         try {
             Order order = entityManager.find(Order.class, id);
             return Optional.ofNullable(order);
@@ -34,9 +95,26 @@ public class OrderRepository {
         }
     }
 
+    /**
+     * All orders as response DTOs, read with their car and user columns in one tuple query, see
+     * {@link CarRepository#findAllResponses()}.
+     */
+    public List<OrderResponse> findAllResponses() {
+        try {
+            return readEntityManager.createNamedQuery(Order.FIND_ALL_ROWS, Object[].class)
+                    .getResultList().stream()
+                    .map(OrderResponse::fromRow)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error finding all orders", e);
+            return List.of();
+        }
+    }
+
     public List<Order> findAll() {
         try {
-            return entityManager.createQuery("SELECT o FROM Order o", Order.class)
+            return readEntityManager.createNamedQuery(Order.FIND_ALL, Order.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
         } catch (Exception e) {
             log.error("Error finding all orders", e);
@@ -44,12 +122,129 @@ public class OrderRepository {
         }
     }
 
+    /**
+     * Resolves many ids at once, see {@link CarRepository#findAllById(Collection)}. Orders loaded from
+     * the database come with their car and user fetched in the same query.
+     */
+    public List<Order> findAllById(Collection<Long> ids) {
+        return findAllById(ids, false);
+    }
+
+    /**
+     * As {@link #findAllById(Collection)}; ids not found among the hot orders are looked up in the
+     * archive when {@code includeArchived} is set.
+     */
+    public List<Order> findAllById(Collection<Long> ids, boolean includeArchived) {
+        List<Order> orders = new ArrayList<>(ids.size());
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            Order cached = readEntityManager.find(Order.class, id, CACHE_ONLY);
+            if (cached != null) {
+                orders.add(cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += CarRepository.IN_CHUNK_SIZE) {
+            List<Long> chunk = misses.subList(from, Math.min(from + CarRepository.IN_CHUNK_SIZE, misses.size()));
+            orders.addAll(readEntityManager.createNamedQuery(Order.FIND_BY_IDS, Order.class)
+                    .setParameter("ids", chunk)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                    .getResultList());
+        }
+        if (includeArchived && orders.size() < ids.size()) {
+            List<Long> archivedIds = new ArrayList<>(ids);
+            orders.forEach(order -> archivedIds.remove(order.getId()));
+            orders.addAll(findArchived(archivedIds));
+        }
+        return orders;
+    }
+
+    /**
+     * Loads orders, with their car and user, through the primary {@link EntityManager} in one query
+     * per {@value CarRepository#IN_CHUNK_SIZE} ids, for callers that are going to modify them.
+     */
+    public List<Order> findAllByIdForWrite(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<Order> orders = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += CarRepository.IN_CHUNK_SIZE) {
+            orders.addAll(entityManager.createNamedQuery(Order.FIND_BY_IDS, Order.class)
+                    .setParameter("ids", idList.subList(from, Math.min(from + CarRepository.IN_CHUNK_SIZE, idList.size())))
+                    .getResultList());
+        }
+        return orders;
+    }
+
+    /**
+     * Takes the next order id from the preallocated sequence block, for orders whose id must be known
+     * before they are written.
+     */
+    public long nextId() {
+        return JpaHelper.getServerSession(entityManager.getEntityManagerFactory())
+                .getNextSequenceNumberValue(Order.class)
+                .longValue();
+    }
+
+    /**
+     * Inserts new orders through the given {@link EntityManager}; must be called inside its open
+     * transaction. Ids come from the sequence, so with batch writing the inserts go out as JDBC batches.
+     */
+    public void persistAll(EntityManager em, List<Order> orders) {
+        for (Order order : orders) {
+            em.persist(order);
+        }
+        em.flush();
+    }
+
+    /**
+     * Writes status changes made to orders and cars loaded with {@link #findAllByIdForWrite(Collection)}
+     * in one transaction. With batch writing enabled the updates go out as JDBC batches.
+     */
+    public void saveStatusChanges(List<Order> orders, List<Car> cars) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            entityManager.flush();
+            changeLogRepository.record(ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT,
+                    orders.stream().map(Order::getId).collect(Collectors.toList()));
+            changeLogRepository.record(ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT,
+                    cars.stream().map(Car::getId).collect(Collectors.toList()));
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            log.error("Error saving status changes of {} orders", orders.size(), e);
+            throw e;
+        }
+        entityCacheManager.ordersChanged(orders.stream().map(Order::getId).collect(Collectors.toList()));
+        if (!cars.isEmpty()) {
+            entityCacheManager.carsChanged(cars);
+        }
+    }
+
     public List<Order> findByUser(User user) {
+        return findByUser(user, false);
+    }
+
+    /**
+     * The user's hot orders, followed by their archived ones when {@code includeArchived} is set.
+     */
+    public List<Order> findByUser(User user, boolean includeArchived) {
         try {
-            return entityManager.createQuery(
-                    "SELECT o FROM Order o WHERE o.userDto = :user", Order.class)
+            List<Order> orders = readEntityManager.createNamedQuery(Order.FIND_BY_USER, Order.class)
                     .setParameter("user", user)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
+            if (!includeArchived) {
+                return orders;
+            }
+            List<Order> all = new ArrayList<>(orders);
+            all.addAll(readEntityManager.createNamedQuery(Order.FIND_ARCHIVED_BY_USER, Order.class)
+                    .setParameter(1, user.getId())
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                    .getResultList());
+            return all;
         } catch (Exception e) {
             log.error("Error finding orders by user: {}", user, e);
             return List.of();
@@ -59,10 +254,10 @@ public class OrderRepository {
     public Optional<Order> findCurrentOrderByUser(User user) {
         try {
             List<Order.Status> statuses = List.of(Order.Status.PENDING, Order.Status.PAID, Order.Status.ACTIVE);
-            List<Order> orders = entityManager.createQuery(
-                    "SELECT o FROM Order o WHERE o.userDto = :user AND o.status IN :statuses", Order.class)
+            List<Order> orders = readEntityManager.createNamedQuery(Order.FIND_BY_USER_AND_STATUSES, Order.class)
                     .setParameter("user", user)
                     .setParameter("statuses", statuses)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
             return orders.isEmpty() ? Optional.empty() : Optional.of(orders.get(0));
         } catch (Exception e) {
@@ -71,11 +266,22 @@ public class OrderRepository {
         }
     }
 
+    private List<Order> findArchived(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String idArray = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        return readEntityManager.createNamedQuery(Order.FIND_ARCHIVED_BY_IDS, Order.class)
+                .setParameter(1, idArray)
+                .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                .getResultList();
+    }
+
     public List<Order> findByCar(Car car) {
         try {
-            return entityManager.createQuery(
-                    "SELECT o FROM Order o WHERE o.carDto = :car", Order.class)
+            return readEntityManager.createNamedQuery(Order.FIND_BY_CAR, Order.class)
                     .setParameter("car", car)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
         } catch (Exception e) {
             log.error("Error finding orders by car: {}", car, e);
@@ -90,6 +296,7 @@ public class OrderRepository {
                 transaction.begin();
                 entityManager.persist(order);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT, List.of(order.getId()));
                 transaction.commit();
                 return order;
             } else {
@@ -97,7 +304,9 @@ public class OrderRepository {
                 transaction.begin();
                 Order mergedOrder = entityManager.merge(order);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT, List.of(mergedOrder.getId()));
                 transaction.commit();
+                entityCacheManager.ordersChanged(List.of(mergedOrder.getId()));
                 return mergedOrder;
             }
         } catch (Exception e) {
@@ -112,13 +321,225 @@ public class OrderRepository {
             transaction.begin();
             entityManager.remove(entityManager.contains(order) ? order : entityManager.merge(order));
             entityManager.flush();
+            changeLogRepository.record(ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.DELETE, List.of(order.getId()));
             transaction.commit();
+            entityCacheManager.ordersChanged(List.of(order.getId()));
         } catch (Exception e) {
             log.error("Error deleting order: {}", order, e);
             throw e;
         }
     }
 
+    /**
+     * Streams the orders created in {@code [from, to)} to {@code handler}, one row at a time, without
+     * materializing entities. Either bound may be {@code null}; archived orders are included. Rows are
+     * read through a forward-only cursor on the read-only connection; the PostgreSQL driver only honours
+     * the fetch size with autocommit off, so the read runs inside a transaction that is rolled back at
+     * the end.
+     * <p>
+     * Column order: id, user_id, car_id, start_date, end_date, total_price, status, created_at.
+     */
+    public void streamExportRows(LocalDate from, LocalDate to, int fetchSize, ExportRowHandler handler)
+            throws IOException, SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, user_id, car_id, start_date, end_date, total_price, status, created_at FROM ("
+                        + "SELECT id, user_id, car_id, start_date, end_date, total_price, status, created_at FROM orders "
+                        + "UNION ALL "
+                        + "SELECT id, user_id, car_id, start_date, end_date, total_price, status, created_at FROM orders_archive"
+                        + ") o WHERE 1 = 1");
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+        }
+        sql.append(" ORDER BY id");
+
+        EntityTransaction transaction = readEntityManager.getTransaction();
+        transaction.begin();
+        try {
+            Connection connection = readEntityManager.unwrap(Connection.class);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                int index = 1;
+                if (from != null) {
+                    statement.setObject(index++, from);
+                }
+                if (to != null) {
+                    statement.setObject(index, to);
+                }
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        handler.accept(rows);
+                    }
+                }
+            }
+        } catch (IOException | SQLException e) {
+            log.error("Error streaming orders: from={}, to={}", from, to, e);
+            throw e;
+        } finally {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Streams every order, hot and archived, to {@code handler} through a forward-only cursor on the
+     * given {@link EntityManager}, in a transaction that is rolled back at the end like
+     * {@link #streamExportRows}.
+     * <p>
+     * Column order: car_id, start_date, end_date, total_price, status.
+     */
+    public void streamAnalyticsRows(EntityManager em, int fetchSize, ExportRowHandler handler)
+            throws IOException, SQLException {
+        EntityTransaction transaction = em.getTransaction();
+        transaction.begin();
+        try {
+            Connection connection = em.unwrap(Connection.class);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT car_id, start_date, end_date, total_price, status FROM orders "
+                            + "UNION ALL "
+                            + "SELECT car_id, start_date, end_date, total_price, status FROM orders_archive",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        handler.accept(rows);
+                    }
+                }
+            }
+        } catch (IOException | SQLException e) {
+            log.error("Error streaming orders for analytics", e);
+            throw e;
+        } finally {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} completed or rejected orders created before {@code createdBefore} into
+     * {@code orders_archive}, in the caller's transaction on {@code em}. Rows locked by concurrent
+     * writers are skipped and picked up by a later run.
+     *
+     * @return the ids of the archived orders
+     */
+    public List<Long> archiveClosedOrders(EntityManager em, LocalDate createdBefore, int limit) {
+        List<?> rows = em.createNamedQuery(Order.ARCHIVE_CLOSED)
+                .setParameter(1, createdBefore)
+                .setParameter(2, limit)
+                .getResultList();
+        return rows.stream().map(row -> ((Number) row).longValue()).collect(Collectors.toList());
+    }
+
+    /**
+     * Runs one batch of a status transition, {@link Order#COMPLETE_ENDED}, {@link Order#ACTIVATE_STARTED}
+     * or {@link Order#EXPIRE_UNPAID}, in the caller's transaction on {@code em}. At most {@code limit} due
+     * orders are updated; orders locked by other transactions or nodes are skipped, not waited for.
+     *
+     * @return the updated orders
+     */
+    public List<TransitionedOrder> transitionDueOrders(EntityManager em, String transitionQuery, LocalDate today,
+                                                       int limit) {
+        List<?> rows = em.createNamedQuery(transitionQuery)
+                .setParameter(1, today)
+                .setParameter(2, limit)
+                .getResultList();
+        List<TransitionedOrder> orders = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            orders.add(new TransitionedOrder(((Number) columns[0]).longValue(),
+                    columns[1] != null ? ((Number) columns[1]).longValue() : null,
+                    Order.Status.valueOf((String) columns[2]),
+                    toLocalDate(columns[3]),
+                    toLocalDate(columns[4]),
+                    (BigDecimal) columns[5]));
+        }
+        return orders;
+    }
+
+    /**
+     * An order updated by {@link #transitionDueOrders}, with the status it had before.
+     */
+    public record TransitionedOrder(long orderId, Long carId, Order.Status previousStatus, LocalDate startDate,
+                                    LocalDate endDate, BigDecimal totalPrice) {
+    }
+
+    /**
+     * Lowest and highest order id over the hot and archive tables, {@code [0, 0]} if there are none.
+     */
+    public long[] findIdRange(EntityManager em) {
+        Object[] row = (Object[]) em.createNamedQuery(Order.ID_RANGE).getSingleResult();
+        return new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue()};
+    }
+
+    /**
+     * Rows of {@link Order#STATISTICS_ROWS} for ids in {@code [fromId, toId)}, hot and archived.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findStatisticsRows(EntityManager em, long fromId, long toId) {
+        return em.createNamedQuery(Order.STATISTICS_ROWS)
+                .setParameter(1, fromId)
+                .setParameter(2, toId)
+                .getResultList();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    /**
+     * Creates the monthly partition of {@code orders} for {@code month} unless it exists, in its own
+     * transaction on {@code em}. Orders of that month that had landed in the default partition are
+     * moved into the new one before it is attached. {@code orders_default} is locked against writes from
+     * the move until the commit, which the attach would need anyway: an order of that month inserted
+     * between the move and the attach would otherwise stay in the default partition and make the attach
+     * fail. Inserts wait for the lock, which is held only briefly because partitions are normally created
+     * months ahead, while the default partition has no rows for them.
+     *
+     * @return whether the partition was created
+     */
+    public boolean createMonthlyPartition(EntityManager em, YearMonth month) {
+        String name = String.format("orders_%04d_%02d", month.getYear(), month.getMonthValue());
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        EntityTransaction transaction = em.getTransaction();
+        transaction.begin();
+        try {
+            em.createNativeQuery("SELECT pg_advisory_xact_lock(?1)")
+                    .setParameter(1, PARTITION_LOCK_KEY)
+                    .getSingleResult();
+            Object existing = em.createNativeQuery("SELECT CAST(to_regclass(?1) AS text)")
+                    .setParameter(1, name)
+                    .getSingleResult();
+            if (existing != null) {
+                transaction.rollback();
+                return false;
+            }
+            String range = "created_at >= DATE '" + start + "' AND created_at < DATE '" + end + "'";
+            em.createNativeQuery("LOCK TABLE orders_default IN ACCESS EXCLUSIVE MODE").executeUpdate();
+            em.createNativeQuery("CREATE TABLE " + name + " (LIKE orders INCLUDING DEFAULTS)").executeUpdate();
+            em.createNativeQuery("INSERT INTO " + name + " (" + Order.COLUMNS + ") SELECT " + Order.COLUMNS
+                    + " FROM orders_default WHERE " + range).executeUpdate();
+            em.createNativeQuery("DELETE FROM orders_default WHERE " + range).executeUpdate();
+            em.createNativeQuery("ALTER TABLE orders ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + start + "') TO ('" + end + "')").executeUpdate();
+            transaction.commit();
+            log.info("Created orders partition {}", name);
+            return true;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            log.error("Error creating orders partition {}", name, e);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ExportRowHandler {
+        void accept(ResultSet row) throws IOException, SQLException;
+    }
+
     public void updateOrderStatus(Long orderId, Order.Status status) {
         try {
             Order order = entityManager.find(Order.class, orderId);
@@ -128,7 +549,9 @@ public class OrderRepository {
                 order.setStatus(status);
                 entityManager.merge(order);
                 entityManager.flush();
+                changeLogRepository.record(ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT, List.of(orderId));
                 transaction.commit();
+                entityCacheManager.ordersChanged(List.of(orderId));
             }
         } catch (Exception e) {
             log.error("Error updating order status: orderId={}, status={}", orderId, status, e);
@@ -1,5 +1,8 @@
 package com.laba.ilaba.repository;
 
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.dto.UserResponse;
 import com.laba.ilaba.entity.User;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -8,6 +11,8 @@ import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.NoResultException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +24,13 @@ public class UserRepository {
     @Inject
     private EntityManager entityManager;
 
+    @Inject
+    @ReadOnly
+    private EntityManager readEntityManager;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
     @Inject
     public UserRepository(EntityManager entityManager) {
         this.entityManager = entityManager;
@@ -26,7 +38,7 @@ public class UserRepository {
 
     public Optional<User> findById(Long id) {
         try {
-            User user = entityManager.find(User.class, id);
+            User user = readEntityManager.find(User.class, id, CarRepository.READ_ONLY);
             return Optional.ofNullable(user);
         } catch (Exception e) {
             log.error("Error finding user by id: {}", id, e);
@@ -35,10 +47,21 @@ public class UserRepository {
     }
 
     public Optional<User> findByEmail(String email) {
+        return findByEmail(readEntityManager, email, true);
+    }
+
+    /**
+     * Loads a user through the primary {@link EntityManager}, see {@link CarRepository#findByIdForWrite(Long)}.
+     */
+    public Optional<User> findByEmailForWrite(String email) {
+        return findByEmail(entityManager, email, false);
+    }
+
+    private Optional<User> findByEmail(EntityManager em, String email, boolean readOnly) {
         try {
-            User user = entityManager.createQuery(
-                    "SELECT u FROM User u WHERE u.email = :email", User.class)
+            User user = em.createNamedQuery(User.FIND_BY_EMAIL, User.class)
                     .setParameter("email", email)
+                    .setHint(QueryHints.READ_ONLY, readOnly ? HintValues.TRUE : HintValues.FALSE)
                     .getSingleResult();
             return Optional.of(user);
         } catch (NoResultException e) {
@@ -49,9 +72,23 @@ public class UserRepository {
         }
     }
 
+    /**
+     * All users as response DTOs, see {@link CarRepository#findAllResponses()}.
+     */
+    public List<UserResponse> findAllResponses() {
+        try {
+            return readEntityManager.createNamedQuery(User.FIND_ALL_RESPONSES, UserResponse.class)
+                    .getResultList();
+        } catch (Exception e) {
+            log.error("Error finding all users", e);
+            return List.of();
+        }
+    }
+
     public List<User> findAll() {
         try {
-            return entityManager.createQuery("SELECT u FROM User u", User.class)
+            return readEntityManager.createNamedQuery(User.FIND_ALL, User.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
                     .getResultList();
         } catch (Exception e) {
             log.error("Error finding all users", e);
@@ -67,6 +104,7 @@ public class UserRepository {
                 entityManager.persist(user);
                 entityManager.flush();
                 transaction.commit();
+                entityCacheManager.userChanged(user);
                 return user;
             } else {
                 EntityTransaction transaction = entityManager.getTransaction();
@@ -74,6 +112,7 @@ public class UserRepository {
                 User mergedUser = entityManager.merge(user);
                 entityManager.flush();
                 transaction.commit();
+                entityCacheManager.userChanged(mergedUser);
                 return mergedUser;
             }
         } catch (Exception e) {
@@ -89,16 +128,20 @@ public class UserRepository {
             entityManager.remove(entityManager.contains(user) ? user : entityManager.merge(user));
             entityManager.flush();
             transaction.commit();
+            entityCacheManager.userDeleted(user.getId());
         } catch (Exception e) {
             log.error("Error deleting user: {}", user, e);
             throw e;
         }
     }
 
+    /**
+     * Always answered by the primary: authentication runs before read routing is decided, and a user
+     * who has just signed up must not be rejected because the replica is behind.
+     */
     public boolean existsByEmail(String email) {
         try {
-            Long count = entityManager.createQuery(
-                    "SELECT COUNT(u) FROM User u WHERE u.email = :email", Long.class)
+            Long count = entityManager.createNamedQuery(User.COUNT_BY_EMAIL, Long.class)
                     .setParameter("email", email)
                     .getSingleResult();
             return count > 0;
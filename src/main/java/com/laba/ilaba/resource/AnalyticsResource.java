@@ -0,0 +1,53 @@
+package com.laba.ilaba.resource;
+
+import com.laba.ilaba.analytics.AnalyticsEngine;
+import com.laba.ilaba.dto.AnalyticsQueryRequest;
+import com.laba.ilaba.dto.AnalyticsQueryResponse;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+@Path("/analytics")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Slf4j
+public class AnalyticsResource {
+
+    @Inject
+    private AnalyticsEngine analyticsEngine;
+
+    @POST
+    @Path("/query")
+    public Response query(AnalyticsQueryRequest request) {
+        log.info("Running analytics query: {}", request);
+        if (!analyticsEngine.isReady()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", 30)
+                    .entity("Analytics snapshot is still loading")
+                    .build();
+        }
+        try {
+            AnalyticsQueryResponse response = analyticsEngine.query(
+                    request != null ? request : new AnalyticsQueryRequest());
+            log.info("Analytics query matched {} of {} orders in {} us", response.getMatched(),
+                    response.getScanned(), response.getTookMicros());
+            return Response.ok(response).build();
+        } catch (BadRequestException e) {
+            log.warn("Bad analytics query: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error running analytics query: {}", request, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+}
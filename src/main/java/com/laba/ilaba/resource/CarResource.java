@@ -1,17 +1,34 @@
 package com.laba.ilaba.resource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.laba.ilaba.cache.CarCatalog;
+import com.laba.ilaba.cache.SuggestIndex;
+import com.laba.ilaba.config.ReadRouting;
+import com.laba.ilaba.dto.CarImportResponse;
 import com.laba.ilaba.dto.CarRequest;
 import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.CarSuggestion;
+import com.laba.ilaba.dto.MultiGetResponse;
+import com.laba.ilaba.dto.QuoteResponse;
+import com.laba.ilaba.service.CarEventPublisher;
+import com.laba.ilaba.service.CarImportService;
 import com.laba.ilaba.service.CarService;
+import com.laba.ilaba.service.PricingEngine;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.InputStream;
 import java.security.Principal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Path("/cars")
@@ -22,11 +39,35 @@ public class CarResource {
     
     @Inject
     private CarService carService;
+
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
+    @Inject
+    private CarImportService carImportService;
+
+    @Inject
+    private PricingEngine pricingEngine;
+
+    @Inject
+    private CarCatalog carCatalog;
+
+    @Inject
+    private SuggestIndex suggestIndex;
+
+    @Inject
+    private ReadRouting readRouting;
     
     @GET
-    public Response getAllCars() {
+    public Response getAllCars(@QueryParam("ids") String ids) {
+        if (ids != null) {
+            return getCarsByIds(ids);
+        }
         log.info("Getting all cars");
         try {
+            if (servesFromCatalog()) {
+                return Response.ok(carCatalog.renderAll(false), MediaType.APPLICATION_JSON_TYPE).build();
+            }
             List<CarResponse> cars = carService.getAllCars();
             return Response.ok(cars).build();
         } catch (Exception e) {
@@ -37,11 +78,63 @@ public class CarResource {
         }
     }
     
+    private Response getCarsByIds(String ids) {
+        log.info("Getting cars by ids: {}", ids);
+        try {
+            MultiGetResponse<CarResponse> cars = carService.getCarsByIds(IdListParser.parse(ids));
+            return Response.ok(cars).build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request getting cars by ids: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error getting cars by ids: {}", ids, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+    
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamCarEvents(@Context SseEventSink eventSink,
+                                @Context Sse sse,
+                                @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
+        log.info("Subscribing to car events, Last-Event-ID: {}", lastEventId);
+        carEventPublisher.subscribe(eventSink, sse, lastEventId);
+    }
+    
+    @GET
+    @Path("/suggest")
+    public Response suggest(@QueryParam("q") @DefaultValue("") String q,
+                            @QueryParam("limit") @DefaultValue("10") int limit) {
+        log.debug("Suggesting cars for: {}, limit: {}", q, limit);
+        if (limit < 1 || limit > SuggestIndex.MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and " + SuggestIndex.MAX_LIMIT)
+                    .build();
+        }
+        if (!suggestIndex.isReady()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", 5)
+                    .entity("Suggestions are still being built")
+                    .build();
+        }
+        List<CarSuggestion> suggestions = suggestIndex.suggest(q, limit);
+        return Response.ok(suggestions).build();
+    }
+    
     @GET
     @Path("/{id}")
     public Response getCarById(@PathParam("id") Long id) {
         log.info("Getting car by id: {}", id);
         try {
+            byte[] json = servesFromCatalog() ? carCatalog.render(id) : null;
+            if (json != null) {
+                return Response.ok(json, MediaType.APPLICATION_JSON_TYPE).build();
+            }
             CarResponse car = carService.getCarById(id);
             return Response.ok(car).build();
         } catch (NotFoundException e) {
@@ -57,6 +150,44 @@ public class CarResource {
         }
     }
     
+    @GET
+    @Path("/{id}/quote")
+    public Response getQuote(@PathParam("id") Long id,
+                             @QueryParam("from") String from,
+                             @QueryParam("to") String to) {
+        log.info("Getting quote for car: {}, from: {}, to: {}", id, from, to);
+        try {
+            PricingEngine.Quote quote = pricingEngine.quote(id, parseDate(from), parseDate(to));
+            return Response.ok(QuoteResponse.fromQuote(quote)).build();
+        } catch (NotFoundException e) {
+            log.warn("Car not found with id: {}", id);
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request getting quote: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error getting quote for car: {}", id, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date, expected yyyy-MM-dd: " + value);
+        }
+    }
+    
     @POST
     public Response createCar(CarRequest carRequest, @Context SecurityContext securityContext) {
         Principal principal = securityContext.getUserPrincipal();
@@ -79,6 +210,46 @@ public class CarResource {
         }
     }
     
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, CarImportService.TEXT_CSV})
+    public Response importCars(InputStream body,
+                               @QueryParam("chunkSize") Integer chunkSize,
+                               @Context HttpHeaders headers,
+                               @Context SecurityContext securityContext) {
+        Principal principal = securityContext.getUserPrincipal();
+        if (principal == null) {
+            log.warn("Attempt to import cars without authentication");
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        String email = principal.getName();
+        MediaType mediaType = headers.getMediaType();
+        log.info("Importing cars for user: {}, content type: {}", email, mediaType);
+
+        try {
+            CarImportResponse result = mediaType != null && mediaType.isCompatible(MediaType.valueOf(CarImportService.TEXT_CSV))
+                    ? carImportService.importCsv(body, chunkSize)
+                    : carImportService.importJson(body, chunkSize);
+            return Response.ok(result).build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request importing cars: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed JSON importing cars: {}", e.getOriginalMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Malformed JSON: " + e.getOriginalMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error importing cars for user: {}", email, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+    
     @DELETE
     @Path("/{id}")
     public Response deleteCar(@PathParam("id") Long id, @Context SecurityContext securityContext) {
@@ -111,4 +282,12 @@ public class CarResource {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The catalog may trail the database by an invalidation round trip, so a request routed to the
+     * primary after the caller's own write reads from {@link CarService} instead.
+     */
+    private boolean servesFromCatalog() {
+        return carCatalog.isReady() && !readRouting.isPrimary();
+    }
+}
@@ -0,0 +1,40 @@
+package com.laba.ilaba.resource;
+
+import com.laba.ilaba.dto.ChangeFeedResponse;
+import com.laba.ilaba.service.ChangeFeedService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+@Path("/changes")
+@Produces(MediaType.APPLICATION_JSON)
+@Slf4j
+public class ChangeFeedResource {
+
+    private static final int MAX_LIMIT = 5000;
+
+    @Inject
+    private ChangeFeedService changeFeedService;
+
+    @GET
+    public Response getChanges(@QueryParam("since") @DefaultValue("0") long since,
+                               @QueryParam("limit") @DefaultValue("500") int limit) {
+        log.info("Getting changes since: {}, limit: {}", since, limit);
+        if (since < 0 || limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("since must be >= 0 and limit must be > 0")
+                    .build();
+        }
+        try {
+            ChangeFeedResponse changes = changeFeedService.getChanges(since, Math.min(limit, MAX_LIMIT));
+            return Response.ok(changes).build();
+        } catch (Exception e) {
+            log.error("Error getting changes since: {}", since, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+}
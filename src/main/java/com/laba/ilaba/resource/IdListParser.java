@@ -0,0 +1,41 @@
+package com.laba.ilaba.resource;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class IdListParser {
+
+    static final int MAX_IDS = 1000;
+
+    private IdListParser() {
+    }
+
+    /**
+     * Parses a comma separated {@code ids} query parameter, keeping the first occurrence of each id.
+     */
+    static List<Long> parse(String ids) {
+        Set<Long> parsed = new LinkedHashSet<>();
+        for (String part : ids.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(Long.parseLong(trimmed));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid id: " + trimmed);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
+        }
+        if (parsed.size() > MAX_IDS) {
+            throw new BadRequestException("At most " + MAX_IDS + " ids can be requested at once");
+        }
+        return new ArrayList<>(parsed);
+    }
+}
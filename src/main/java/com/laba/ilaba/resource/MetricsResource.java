@@ -0,0 +1,70 @@
+package com.laba.ilaba.resource;
+
+import com.laba.ilaba.cache.CarCatalog;
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.compression.CompressionMetrics;
+import com.laba.ilaba.service.BookingCoordinator;
+import com.laba.ilaba.service.OrderLifecycleMetrics;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+@Path("/metrics")
+@Produces(MediaType.APPLICATION_JSON)
+@Slf4j
+public class MetricsResource {
+
+    @Inject
+    private CompressionMetrics compressionMetrics;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
+    @Inject
+    private OrderLifecycleMetrics orderLifecycleMetrics;
+
+    @Inject
+    private BookingCoordinator bookingCoordinator;
+
+    @Inject
+    private CarCatalog carCatalog;
+
+    @GET
+    @Path("/compression")
+    public Response getCompressionMetrics() {
+        log.info("Getting compression metrics");
+        return Response.ok(compressionMetrics.snapshot()).build();
+    }
+
+    @GET
+    @Path("/cache")
+    public Response getCacheMetrics() {
+        log.info("Getting cache metrics");
+        return Response.ok(entityCacheManager.statistics()).build();
+    }
+
+    @GET
+    @Path("/lifecycle")
+    public Response getLifecycleMetrics() {
+        log.info("Getting order lifecycle metrics");
+        return Response.ok(orderLifecycleMetrics.snapshot()).build();
+    }
+
+    @GET
+    @Path("/booking")
+    public Response getBookingMetrics() {
+        log.info("Getting booking metrics");
+        return Response.ok(bookingCoordinator.snapshot()).build();
+    }
+
+    @GET
+    @Path("/catalog")
+    public Response getCatalogMetrics() {
+        log.info("Getting car catalog metrics");
+        return Response.ok(carCatalog.statistics()).build();
+    }
+}
@@ -1,18 +1,36 @@
 package com.laba.ilaba.resource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laba.ilaba.dto.MultiGetResponse;
+import com.laba.ilaba.dto.OrderIntakeResponse;
 import com.laba.ilaba.dto.OrderRequest;
 import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.dto.OrderStatusBatchResponse;
+import com.laba.ilaba.dto.OrderStatusUpdate;
+import com.laba.ilaba.service.IdempotencyService;
+import com.laba.ilaba.service.OrderExportService;
+import com.laba.ilaba.service.OrderIntake;
 import com.laba.ilaba.service.OrderService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Providers;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.security.Principal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Optional;
 
 @Path("/orders")
 @Produces(MediaType.APPLICATION_JSON)
@@ -22,9 +40,27 @@ public class OrderResource {
     
     @Inject
     private OrderService orderService;
+
+    @Inject
+    private IdempotencyService idempotencyService;
+
+    @Inject
+    private OrderIntake orderIntake;
+
+    @Context
+    private Providers providers;
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Inject
+    private OrderExportService orderExportService;
     
     @GET
-    public Response getAllOrders() {
+    public Response getAllOrders(@QueryParam("ids") String ids) {
+        if (ids != null) {
+            return getOrdersByIds(ids);
+        }
         log.info("Getting all orders");
         try {
             List<OrderResponse> orders = orderService.getAllOrders();
@@ -37,12 +73,80 @@ public class OrderResource {
         }
     }
     
+    private Response getOrdersByIds(String ids) {
+        log.info("Getting orders by ids: {}", ids);
+        try {
+            MultiGetResponse<OrderResponse> orders = orderService.getOrdersByIds(IdListParser.parse(ids));
+            return Response.ok(orders).build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request getting orders by ids: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error getting orders by ids: {}", ids, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+    
+    @GET
+    @Path("/export")
+    @Produces({"text/csv", "application/x-ndjson"})
+    public Response exportOrders(@QueryParam("format") @DefaultValue("csv") String format,
+                                 @QueryParam("from") String from,
+                                 @QueryParam("to") String to) {
+        log.info("Exporting orders: format={}, from={}, to={}", format, from, to);
+        try {
+            OrderExportService.Format exportFormat = OrderExportService.Format.parse(format);
+            StreamingOutput export = orderExportService.exportOrders(exportFormat, parseDate(from), parseDate(to));
+            return Response.ok(export, exportFormat.mediaType())
+                    .header("Content-Disposition", "attachment; filename=\"orders." + exportFormat.extension() + "\"")
+                    .build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request exporting orders: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error exporting orders", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date, expected yyyy-MM-dd: " + value);
+        }
+    }
+    
     @GET
     @Path("/{id}")
-    public Response getOrderById(@PathParam("id") Long id) {
+    public Response getOrderById(@PathParam("id") Long id,
+                                 @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived) {
         log.info("Getting order by id: {}", id);
+        Optional<OrderIntakeResponse> intake = orderIntake.status(id);
+        if (intake.isPresent()) {
+            OrderIntakeResponse state = intake.get();
+            state.setStatusUrl(statusUri(id).toString());
+            return Response.status(state.getState() == OrderIntakeResponse.State.QUEUED
+                            ? Response.Status.ACCEPTED
+                            : Response.Status.CONFLICT)
+                    .entity(state)
+                    .build();
+        }
         try {
-            OrderResponse order = orderService.getOrderById(id);
+            OrderResponse order = orderService.getOrderById(id, includeArchived);
             return Response.ok(order).build();
         } catch (NotFoundException e) {
             log.warn("Order not found with id: {}", id);
@@ -86,7 +190,10 @@ public class OrderResource {
 //    }
     
     @POST
-    public Response createOrder(OrderRequest orderRequest, @Context SecurityContext securityContext) {
+    public Response createOrder(
+            OrderRequest orderRequest,
+            @HeaderParam(IdempotencyService.HEADER) String idempotencyKey,
+            @Context SecurityContext securityContext) {
         Principal principal = securityContext.getUserPrincipal();
         if (principal == null) {
             log.warn("Attempt to create order without authentication");
@@ -94,11 +201,54 @@ public class OrderResource {
         }
         
         String email = principal.getName();
+        if (idempotencyKey == null) {
+            return createOrderResponse(orderRequest, email);
+        }
+
+        try {
+            String request = orderRequest.getCarId() + "|" + orderRequest.getStartDate() + "|"
+                    + orderRequest.getEndDate() + "|" + orderRequest.getTotalPrice();
+            IdempotencyService.Reply reply = idempotencyService.execute(email, idempotencyKey, request,
+                    () -> toReply(createOrderResponse(orderRequest, email)));
+            Response.ResponseBuilder response = Response.status(reply.status())
+                    .entity(reply.body())
+                    .type(MediaType.APPLICATION_JSON_TYPE);
+            if (reply.replayed()) {
+                log.info("Replaying stored reply for idempotent order creation, user: {}", email);
+                response.header(IdempotencyService.REPLAYED_HEADER, "true");
+            }
+            return response.build();
+        } catch (WebApplicationException e) {
+            log.warn("Idempotent order creation rejected: {}", e.getMessage());
+            return Response.status(e.getResponse().getStatus())
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error creating order for user: {}", email, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    private Response createOrderResponse(OrderRequest orderRequest, String email) {
         log.info("Creating order for user: {}, carId: {}", email, orderRequest.getCarId());
         
         try {
+            if (orderIntake.isEnabled()) {
+                OrderIntakeResponse queued = orderService.submitOrder(orderRequest, email);
+                URI statusUri = statusUri(queued.getId());
+                queued.setStatusUrl(statusUri.toString());
+                return Response.accepted(queued).location(statusUri).build();
+            }
             OrderResponse order = orderService.createOrder(orderRequest, email);
             return Response.status(Response.Status.CREATED).entity(order).build();
+        } catch (ServiceUnavailableException e) {
+            log.warn("Order intake is full: {}", e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, 1)
+                    .entity(e.getMessage())
+                    .build();
         } catch (BadRequestException e) {
             log.warn("Bad request creating order: {}", e.getMessage());
             return Response.status(Response.Status.BAD_REQUEST)
@@ -109,6 +259,11 @@ public class OrderResource {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(e.getMessage())
                     .build();
+        } catch (ClientErrorException e) {
+            log.warn("Order creation rejected: {}", e.getMessage());
+            return Response.status(e.getResponse().getStatus())
+                    .entity(e.getMessage())
+                    .build();
         } catch (Exception e) {
             log.error("Error creating order for user: {}", email, e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -117,6 +272,59 @@ public class OrderResource {
         }
     }
     
+    private URI statusUri(Long id) {
+        return uriInfo.getBaseUriBuilder().path(OrderResource.class).path(String.valueOf(id)).build();
+    }
+
+    private IdempotencyService.Reply toReply(Response response) {
+        Object entity = response.getEntity();
+        if (entity == null || entity instanceof String) {
+            return new IdempotencyService.Reply(response.getStatus(), (String) entity);
+        }
+        ObjectMapper objectMapper = providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE)
+                .getContext(entity.getClass());
+        try {
+            return new IdempotencyService.Reply(response.getStatus(), objectMapper.writeValueAsString(entity));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PATCH
+    @Path("/batch")
+    public Response updateOrderStatuses(
+            List<OrderStatusUpdate> updates,
+            @Context SecurityContext securityContext) {
+        Principal principal = securityContext.getUserPrincipal();
+        if (principal == null) {
+            log.warn("Attempt to batch update order statuses without authentication");
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        String email = principal.getName();
+        log.info("Batch updating order statuses: count={}, user={}", updates == null ? 0 : updates.size(), email);
+
+        try {
+            OrderStatusBatchResponse response = orderService.updateOrderStatuses(updates, email);
+            return Response.ok(response).build();
+        } catch (NotFoundException e) {
+            log.warn("Batch status update failed: {}", e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (BadRequestException e) {
+            log.warn("Bad request batch updating order statuses: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error batch updating order statuses, user={}", email, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
     @PATCH
     @Path("/{id}")
     public Response updateOrderStatus(
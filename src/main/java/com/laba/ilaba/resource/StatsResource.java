@@ -0,0 +1,46 @@
+package com.laba.ilaba.resource;
+
+import com.laba.ilaba.service.FleetStatistics;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+
+@Path("/stats")
+@Produces(MediaType.APPLICATION_JSON)
+@Slf4j
+public class StatsResource {
+
+    @Inject
+    private FleetStatistics fleetStatistics;
+
+    @GET
+    @Path("/fleet")
+    public Response getFleetStatistics() {
+        log.info("Getting fleet statistics");
+        if (!fleetStatistics.isReady()) {
+            return notReady();
+        }
+        return Response.ok(fleetStatistics.fleet()).build();
+    }
+
+    @GET
+    @Path("/revenue")
+    public Response getRevenueStatistics() {
+        log.info("Getting revenue statistics");
+        if (!fleetStatistics.isReady()) {
+            return notReady();
+        }
+        return Response.ok(fleetStatistics.revenue()).build();
+    }
+
+    private static Response notReady() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", 5)
+                .entity("Statistics are still being built")
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.laba.ilaba.resource;
 
+import com.laba.ilaba.dto.BootstrapResponse;
 import com.laba.ilaba.dto.OrderResponse;
 import com.laba.ilaba.dto.UserResponse;
+import com.laba.ilaba.service.BootstrapService;
 import com.laba.ilaba.service.OrderService;
 import com.laba.ilaba.service.UserService;
 import jakarta.inject.Inject;
@@ -13,6 +15,7 @@ import jakarta.ws.rs.core.SecurityContext;
 import lombok.extern.slf4j.Slf4j;
 
 import java.security.Principal;
+import java.util.List;
 
 @Path("/")
 @Produces(MediaType.APPLICATION_JSON)
@@ -24,6 +27,8 @@ public class UserResource {
     private UserService userService;
     @Inject
     private OrderService orderService;
+    @Inject
+    private BootstrapService bootstrapService;
 
 
     @GET
@@ -54,6 +59,64 @@ public class UserResource {
         }
     }
     
+    @GET
+    @Path("/current-user-orders")
+    public Response getCurrentUserOrders(@Context SecurityContext securityContext,
+                                         @QueryParam("includeArchived") @DefaultValue("false") boolean includeArchived) {
+        Principal principal = securityContext.getUserPrincipal();
+        if (principal == null) {
+            log.warn("Attempt to get current user orders without authentication");
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        String email = principal.getName();
+        log.info("Getting orders for user: {}", email);
+
+        try {
+            List<OrderResponse> orders = orderService.getOrdersByUser(email, includeArchived);
+            return Response.ok(orders).build();
+        } catch (NotFoundException e) {
+            log.warn("User not found: {}", email);
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error getting orders for user: {}", email, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * The current user, their current order and the available cars in one round trip.
+     */
+    @GET
+    @Path("/bootstrap")
+    public Response getBootstrap(@Context SecurityContext securityContext) {
+        Principal principal = securityContext.getUserPrincipal();
+        if (principal == null) {
+            log.warn("Attempt to bootstrap without authentication");
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+
+        String email = principal.getName();
+        try {
+            BootstrapResponse bootstrap = bootstrapService.bootstrap(email);
+            return Response.ok(bootstrap).build();
+        } catch (NotFoundException e) {
+            log.warn("User not found: {}", email);
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            log.error("Error bootstrapping user: {}", email, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
     @GET
     @Path("/current-user")
     public Response getCurrentUser(@Context SecurityContext securityContext) {
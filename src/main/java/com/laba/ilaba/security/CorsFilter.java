@@ -22,6 +22,7 @@ public class CorsFilter implements ContainerResponseFilter, ContainerRequestFilt
         responseContext.getHeaders().add("Access-Control-Allow-Origin", "http://localhost:5173");
         responseContext.getHeaders().add("Access-Control-Allow-Credentials", "true");
         responseContext.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, PATCH ");
-        responseContext.getHeaders().add("Access-Control-Allow-Headers", "Origin, Content-Type, Accept, Authorization, X-XSRF-TOKEN, Access-Control-Expose-Headers");
+        responseContext.getHeaders().add("Access-Control-Allow-Headers", "Origin, Content-Type, Accept, Authorization, X-XSRF-TOKEN, Access-Control-Expose-Headers, Last-Event-ID, Idempotency-Key");
+        responseContext.getHeaders().add("Access-Control-Expose-Headers", "Idempotent-Replayed, Location");
     }
 }
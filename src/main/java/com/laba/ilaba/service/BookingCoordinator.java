@@ -0,0 +1,108 @@
+package com.laba.ilaba.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.ClientErrorException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Lets only one booking per car run at a time on this node. The first request for a car takes its
+ * claim and goes on to the database. A request for the same car that arrives while the claim is held
+ * waits up to {@code ilaba.booking.claim-wait-ms} for it: if the holder fails, the waiter books the car
+ * itself and if it succeeds, the waiter finds the car taken in the database. Only a claim held past the
+ * wait is rejected, with 409 rather than "not available" because the car may well still be free, and
+ * without inserting an order only to lose on the row's version check at commit. Callers validate and
+ * price a booking before claiming, so a request that fails anyway never holds the claim.
+ * <p>
+ * The winner still runs on its own request thread, because the booking needs the request's
+ * {@code EntityManager}; the claim map is what serializes bookings per car. Claims only live while a
+ * booking runs, so nothing here can go stale when another node books or frees the car: the database
+ * checks in the booking itself remain the source of truth.
+ */
+@ApplicationScoped
+@Slf4j
+public class BookingCoordinator {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final long claimWaitNanos;
+    private final ConcurrentMap<Long, Object> claims = new ConcurrentHashMap<>();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BookingCoordinator() {
+        this(Long.getLong("ilaba.booking.claim-wait-ms", 250));
+    }
+
+    public BookingCoordinator(long claimWaitMillis) {
+        this.claimWaitNanos = TimeUnit.MILLISECONDS.toNanos(claimWaitMillis);
+    }
+
+    /**
+     * Runs {@code booking} once no other booking of the car is running, or throws a 409
+     * {@link ClientErrorException} if one still is after the wait.
+     */
+    public <T> T book(Long carId, Supplier<T> booking) {
+        Object claim = new Object();
+        if (!claim(carId, claim)) {
+            throw inProgress(carId);
+        }
+        boolean booked = false;
+        try {
+            T result = booking.get();
+            booked = true;
+            return result;
+        } finally {
+            release(carId, claim, booked);
+        }
+    }
+
+    /**
+     * Takes the car's claim for {@code owner}, waiting for a running booking of the car to finish,
+     * for bookings that finish on another thread. Every successful claim must be followed by
+     * {@link #release(Long, Object, boolean)}.
+     */
+    public boolean claim(Long carId, Object owner) {
+        long deadline = System.nanoTime() + claimWaitNanos;
+        while (claims.putIfAbsent(carId, owner) != null) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                rejected.increment();
+                log.info("Rejected booking of car {}: another booking is still in progress", carId);
+                return false;
+            }
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * What a caller throws when {@link #claim(Long, Object)} fails.
+     */
+    public static ClientErrorException inProgress(Long carId) {
+        return new ClientErrorException("Another booking of car " + carId + " is in progress, retry shortly", 409);
+    }
+
+    public void release(Long carId, Object owner, boolean booked) {
+        if (claims.remove(carId, owner)) {
+            (booked ? won : failed).increment();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("inProgress", claims.size());
+        snapshot.put("won", won.sum());
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("failed", failed.sum());
+        return snapshot;
+    }
+}
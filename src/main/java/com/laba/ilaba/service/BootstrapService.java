@@ -0,0 +1,160 @@
+package com.laba.ilaba.service;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.laba.ilaba.cache.CarCatalog;
+import com.laba.ilaba.config.ReadRouting;
+import com.laba.ilaba.dto.BootstrapResponse;
+import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.dto.UserResponse;
+import com.laba.ilaba.entity.User;
+import com.laba.ilaba.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.RequestContextController;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Everything the client needs on start in one call: the user is resolved once on the request thread,
+ * then the current order and the available cars are fetched concurrently on a small bounded pool.
+ * Each branch runs in its own CDI request context, so it gets its own request-scoped entity managers,
+ * and is given {@code ilaba.bootstrap.branch-timeout-ms}; a branch that fails, times out or finds the
+ * pool full is left null and named in {@code unavailable} instead of failing the whole document.
+ * A request routed to the primary (see {@link ReadRouting}) has its branches routed there too, and
+ * then reads the cars from the database rather than from the catalog.
+ * A timed-out branch is not interrupted, it finishes in the background and its result is dropped.
+ */
+@ApplicationScoped
+@Slf4j
+public class BootstrapService {
+
+    static final String CURRENT_ORDER = "currentOrder";
+    static final String AVAILABLE_CARS = "availableCars";
+
+    private final long branchTimeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private OrderService orderService;
+
+    @Inject
+    private CarService carService;
+
+    @Inject
+    private CarCatalog carCatalog;
+
+    @Inject
+    private ReadRouting readRouting;
+
+    @Inject
+    private Instance<RequestContextController> requestContextControllers;
+
+    public BootstrapService() {
+        this(Long.getLong("ilaba.bootstrap.branch-timeout-ms", 2000),
+                Integer.getInteger("ilaba.bootstrap.threads", 8));
+    }
+
+    public BootstrapService(long branchTimeoutMillis, int threads) {
+        this.branchTimeoutMillis = branchTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ilaba-bootstrap-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public BootstrapResponse bootstrap(String email) {
+        log.info("Bootstrapping user: {}", email);
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found with email: " + email));
+
+        boolean primary = readRouting.isPrimary();
+        CompletableFuture<OrderResponse> currentOrder =
+                branch(primary, () -> orderService.findCurrentOrder(user).orElse(null));
+        CompletableFuture<Object> availableCars = branch(primary, this::availableCars);
+
+        List<String> unavailable = new ArrayList<>();
+        BootstrapResponse response = new BootstrapResponse();
+        response.setUser(UserResponse.fromEntity(user));
+        response.setCurrentOrder(await(CURRENT_ORDER, currentOrder, unavailable, email));
+        response.setAvailableCars(await(AVAILABLE_CARS, availableCars, unavailable, email));
+        response.setUnavailable(unavailable);
+        return response;
+    }
+
+    private Object availableCars() {
+        if (!readRouting.isPrimary() && carCatalog.isReady()) {
+            return new RawValue(new String(carCatalog.renderAll(true), StandardCharsets.UTF_8));
+        }
+        return carService.getAvailableCars();
+    }
+
+    private <T> CompletableFuture<T> branch(boolean primary, Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(() -> inRequestContext(primary, work), executor)
+                    .orTimeout(branchTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T inRequestContext(boolean primary, Supplier<T> work) {
+        RequestContextController context = requestContextControllers.get();
+        context.activate();
+        try {
+            // The branch's request context is fresh, so carry the caller's routing over before any read
+            if (primary) {
+                readRouting.usePrimary();
+            }
+            return work.get();
+        } finally {
+            context.deactivate();
+            requestContextControllers.destroy(context);
+        }
+    }
+
+    private <T> T await(String branch, CompletableFuture<T> future, List<String> unavailable, String email) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                log.warn("Bootstrap branch '{}' timed out after {} ms for user: {}", branch, branchTimeoutMillis, email);
+            } else if (cause instanceof RejectedExecutionException) {
+                log.warn("Bootstrap pool is full, skipping '{}' for user: {}", branch, email);
+            } else {
+                log.error("Bootstrap branch '{}' failed for user: {}", branch, email, cause);
+            }
+            unavailable.add(branch);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.laba.ilaba.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.dto.CarResponse;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseBroadcaster;
+import jakarta.ws.rs.sse.SseEventSink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes car availability deltas to Server-Sent Events subscribers. Every event gets an id made of this
+ * node's epoch token and a sequence number, and is kept in a bounded log, so a reconnecting client can
+ * send {@code Last-Event-ID} and receive what it missed. A client that fell further behind than the log
+ * reaches, or whose id comes from another node or an earlier run of this one, gets a {@code reset} event
+ * and has to reload {@code /cars}.
+ * <p>
+ * Subscribers are plain {@link SseEventSink}s registered with a single {@link SseBroadcaster}; an idle
+ * connection holds no thread, only its async response. Writing to the sinks happens on one dispatcher
+ * thread, in event order, so a slow client never holds up the car writes that publish events. Events
+ * that find the dispatch queue ({@code ilaba.sse.dispatch-queue-size}) full are still logged for
+ * replay but not broadcast.
+ */
+@ApplicationScoped
+@Slf4j
+public class CarEventPublisher {
+
+    private static final String EVENT_NAME = "car";
+    private static final String RESET_EVENT_NAME = "reset";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int logCapacity = Integer.getInteger("ilaba.sse.event-log-size", 1024);
+    private final long heartbeatSeconds = Long.getLong("ilaba.sse.heartbeat-seconds", 30);
+    private final ArrayDeque<LoggedEvent> eventLog = new ArrayDeque<>();
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final Executor dispatcher;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    private volatile Sse sse;
+    private volatile SseBroadcaster broadcaster;
+    private long lastEventId;
+
+    public CarEventPublisher() {
+        this(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Integer.getInteger("ilaba.sse.dispatch-queue-size", 10_000)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ilaba-sse-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    CarEventPublisher(Executor dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Registers the sink on the dispatcher thread, after replaying what it missed: every event published
+     * before this call is either replayed or was broadcast before the sink joined, and every later one
+     * reaches it through the broadcaster.
+     */
+    public synchronized void subscribe(SseEventSink sink, Sse sse, String lastEventIdHeader) {
+        if (broadcaster == null) {
+            this.sse = sse;
+            this.broadcaster = sse.newBroadcaster();
+            broadcaster.onError((failedSink, error) -> log.debug("Dropping SSE subscriber: {}", error.getMessage()));
+            scheduler.scheduleWithFixedDelay("sse-heartbeat", this::sendHeartbeat,
+                    heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+
+        String header = lastEventIdHeader != null && !lastEventIdHeader.isBlank() ? lastEventIdHeader.trim() : null;
+        List<LoggedEvent> missed = header != null ? missedSince(header) : List.of();
+        long resetId = lastEventId;
+        boolean queued = dispatch(() -> {
+            if (missed == null) {
+                sink.send(sse.newEventBuilder()
+                        .id(eventId(resetId))
+                        .name(RESET_EVENT_NAME)
+                        .data("{}")
+                        .build());
+            } else {
+                missed.forEach(event -> sink.send(toOutbound(event)));
+            }
+            broadcaster.register(sink);
+        });
+        if (!queued) {
+            sink.close();
+        }
+    }
+
+    public void carCreated(CarResponse car) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "created");
+        data.put("id", car.getId());
+        data.put("car", car);
+        publish(data);
+    }
+
+    public void carDeleted(Long carId) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "deleted");
+        data.put("id", carId);
+        publish(data);
+    }
+
+    public void availabilityChanged(Long carId, boolean available) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "availability");
+        data.put("id", carId);
+        data.put("available", available);
+        publish(data);
+    }
+
+    /**
+     * Tells subscribers that too much changed to describe as deltas and the fleet should be reloaded.
+     */
+    public void fleetChanged() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "reload");
+        publish(data);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (dispatcher instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        if (broadcaster != null) {
+            broadcaster.close();
+        }
+    }
+
+    /**
+     * Logs the event and queues its broadcast. Only the queueing happens under the lock, which keeps
+     * broadcasts in id order; the sinks are written on the dispatcher thread.
+     */
+    private void publish(Map<String, Object> data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize car event: {}", data, e);
+            return;
+        }
+
+        synchronized (this) {
+            LoggedEvent event = new LoggedEvent(++lastEventId, json);
+            eventLog.addLast(event);
+            if (eventLog.size() > logCapacity) {
+                eventLog.removeFirst();
+            }
+            if (broadcaster != null && !dispatch(() -> broadcaster.broadcast(toOutbound(event)))) {
+                log.warn("SSE dispatch queue is full, event {} is only available for replay", event.id());
+            }
+        }
+    }
+
+    /**
+     * The logged events after {@code lastEventIdHeader}, or {@code null} if it is not an id of this
+     * node's run or lies outside the log.
+     */
+    private List<LoggedEvent> missedSince(String lastEventIdHeader) {
+        Long resumeFrom = parseEventId(lastEventIdHeader);
+        LoggedEvent oldest = eventLog.peekFirst();
+        long oldestAvailable = oldest != null ? oldest.id() : lastEventId + 1;
+        if (resumeFrom == null || resumeFrom + 1 < oldestAvailable || resumeFrom > lastEventId) {
+            log.debug("Last-Event-ID {} is not in this node's event log, sending reset", lastEventIdHeader);
+            return null;
+        }
+        List<LoggedEvent> missed = new ArrayList<>();
+        for (LoggedEvent event : eventLog) {
+            if (event.id() > resumeFrom) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private void sendHeartbeat() {
+        dispatch(() -> broadcaster.broadcast(sse.newEventBuilder().comment("keepalive").build()));
+    }
+
+    private boolean dispatch(Runnable task) {
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("SSE dispatch failed: {}", e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private OutboundSseEvent toOutbound(LoggedEvent event) {
+        return sse.newEventBuilder()
+                .id(eventId(event.id()))
+                .name(EVENT_NAME)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, event.json())
+                .build();
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * The sequence number of an id issued by this node's run, {@code null} for anything else.
+     */
+    private Long parseEventId(String header) {
+        if (!header.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record LoggedEvent(long id, String json) {}
+}
@@ -0,0 +1,249 @@
+package com.laba.ilaba.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.laba.ilaba.dto.CarImportResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.repository.CarRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports cars from a JSON array or CSV stream. Rows are parsed one at a time and written in chunks,
+ * each chunk in its own transaction, so memory use does not grow with the size of the upload and a
+ * failing chunk does not undo the ones before it.
+ */
+@ApplicationScoped
+@Slf4j
+public class CarImportService {
+
+    public static final String TEXT_CSV = "text/csv";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+
+    private final int defaultChunkSize = Integer.getInteger("ilaba.import.chunk-size", 1000);
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
+    public CarImportResponse importJson(InputStream body, Integer chunkSize) throws IOException {
+        log.info("Importing cars from JSON");
+        ImportRun run = new ImportRun(chunkSize);
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of cars");
+            }
+            long row = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                row++;
+                JsonNode node = OBJECT_MAPPER.readTree(parser);
+                run.add(row, () -> toCar(
+                        text(node, "make"), text(node, "model"), text(node, "year"), text(node, "pricePerDay")));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                run.fail(row + 1, "Expected a car object but found " + parser.currentToken());
+            }
+        }
+        return run.finish();
+    }
+
+    public CarImportResponse importCsv(InputStream body, Integer chunkSize) throws IOException {
+        log.info("Importing cars from CSV");
+        ImportRun run = new ImportRun(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return run.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = splitCsvLine(headerLine);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : List.of("make", "model", "year", "priceperday")) {
+            if (!columns.containsKey(column)) {
+                throw new BadRequestException("CSV header is missing column: " + column);
+            }
+        }
+
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            List<String> fields = splitCsvLine(line);
+            run.add(row, () -> toCar(
+                    field(fields, columns.get("make")), field(fields, columns.get("model")),
+                    field(fields, columns.get("year")), field(fields, columns.get("priceperday"))));
+        }
+        return run.finish();
+    }
+
+    private static Car toCar(String make, String model, String year, String pricePerDay) {
+        if (make == null || make.isBlank()) {
+            throw new IllegalArgumentException("make is required");
+        }
+        if (model == null || model.isBlank()) {
+            throw new IllegalArgumentException("model is required");
+        }
+        int parsedYear;
+        BigDecimal parsedPrice;
+        try {
+            parsedYear = Integer.parseInt(year.trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("year must be a whole number: " + year);
+        }
+        try {
+            parsedPrice = new BigDecimal(pricePerDay.trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("pricePerDay must be a number: " + pricePerDay);
+        }
+        if (parsedYear < 1886 || parsedYear > Year.now().getValue() + 1) {
+            throw new IllegalArgumentException("year is out of range: " + parsedYear);
+        }
+        if (parsedPrice.signum() <= 0) {
+            throw new IllegalArgumentException("pricePerDay must be positive: " + parsedPrice);
+        }
+        return Car.builder()
+                .make(make.trim())
+                .model(model.trim())
+                .year(parsedYear)
+                .pricePerDay(parsedPrice)
+                .isAvailable(true)
+                .build();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        return value.isNumber() ? value.decimalValue().toPlainString() : value.asText();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        Car parse();
+    }
+
+    private class ImportRun {
+        private final int chunkSize;
+        private final List<Car> chunk;
+        private final List<Long> chunkRows;
+        private final List<CarImportResponse.RowError> errors = new ArrayList<>();
+        private int imported;
+        private int failed;
+
+        ImportRun(Integer chunkSize) {
+            this.chunkSize = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+            this.chunk = new ArrayList<>(this.chunkSize);
+            this.chunkRows = new ArrayList<>(this.chunkSize);
+        }
+
+        void add(long row, RowParser parser) {
+            Car car;
+            try {
+                car = parser.parse();
+            } catch (IllegalArgumentException e) {
+                fail(row, e.getMessage());
+                return;
+            }
+            chunk.add(car);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void fail(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new CarImportResponse.RowError(row, message));
+            }
+        }
+
+        CarImportResponse finish() {
+            flush();
+            if (imported > 0) {
+                carEventPublisher.fleetChanged();
+            }
+            log.info("Car import finished: imported={}, failed={}", imported, failed);
+            return new CarImportResponse(imported, failed, errors);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                carRepository.saveAll(chunk);
+                imported += chunk.size();
+            } catch (Exception e) {
+                for (Long row : chunkRows) {
+                    fail(row, "Chunk rejected by the database: " + e.getMessage());
+                }
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+}
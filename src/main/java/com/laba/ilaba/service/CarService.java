@@ -2,6 +2,7 @@ package com.laba.ilaba.service;
 
 import com.laba.ilaba.dto.CarRequest;
 import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.MultiGetResponse;
 import com.laba.ilaba.entity.Car;
 import com.laba.ilaba.repository.CarRepository;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -10,7 +11,10 @@ import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -20,11 +24,12 @@ public class CarService {
     @Inject
     private CarRepository carRepository;
 
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
     public List<CarResponse> getAllCars() {
         log.info("Getting all cars");
-        return carRepository.findAll().stream()
-                .map(CarResponse::fromEntity)
-                .collect(Collectors.toList());
+        return carRepository.findAllResponses();
     }
 
     public CarResponse getCarById(Long id) {
@@ -34,6 +39,24 @@ public class CarService {
         return CarResponse.fromEntity(car);
     }
 
+    public MultiGetResponse<CarResponse> getCarsByIds(List<Long> ids) {
+        log.info("Getting cars by ids: {}", ids);
+        Map<Long, Car> cars = carRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Car::getId, Function.identity()));
+
+        List<CarResponse> found = new ArrayList<>(cars.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Car car = cars.get(id);
+            if (car != null) {
+                found.add(CarResponse.fromEntity(car));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResponse<>(found, missing);
+    }
+
     public List<CarResponse> getAvailableCars() {
         log.info("Getting available cars");
         return carRepository.findAvailableCars().stream()
@@ -55,26 +78,30 @@ public class CarService {
 
         Car savedCar = carRepository.save(car);
         log.info("Car created successfully with id: {}", savedCar.getId());
-        return CarResponse.fromEntity(savedCar);
+        CarResponse response = CarResponse.fromEntity(savedCar);
+        carEventPublisher.carCreated(response);
+        return response;
     }
 
     @Transactional
     public void deleteCar(Long id) {
         log.info("Deleting car with id: {}", id);
-        Car car = carRepository.findById(id)
+        Car car = carRepository.findByIdForWrite(id)
                 .orElseThrow(() -> new NotFoundException("Car not found with id: " + id));
         carRepository.delete(car);
+        carEventPublisher.carDeleted(id);
         log.info("Car deleted successfully with id: {}", id);
     }
 
     @Transactional
     public void updateCarAvailability(Long id, boolean available) {
         log.info("Updating car availability: id={}, available={}", id, available);
-        Car car = carRepository.findById(id)
+        Car car = carRepository.findByIdForWrite(id)
                 .orElseThrow(() -> new NotFoundException("Car not found with id: " + id));
 
         car.setIsAvailable(available);
         carRepository.save(car);
+        carEventPublisher.availabilityChanged(id, available);
         log.info("Car availability updated successfully: id={}, available={}", id, available);
     }
 }
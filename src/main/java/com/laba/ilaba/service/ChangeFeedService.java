@@ -0,0 +1,101 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.ChangeFeedResponse;
+import com.laba.ilaba.dto.ChangeResponse;
+import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+@Slf4j
+public class ChangeFeedService {
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    /**
+     * Returns the entities changed after {@code since}. Several changes to the same entity within a
+     * page collapse into one entry carrying its current state, or a tombstone if it no longer exists.
+     */
+    public ChangeFeedResponse getChanges(long since, int limit) {
+        log.info("Getting changes since: {}, limit: {}", since, limit);
+        List<ChangeLogEntry> entries = changeLogRepository.findSince(since, limit + 1);
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries = entries.subList(0, limit);
+        }
+        long nextSince = entries.isEmpty() ? since : entries.get(entries.size() - 1).getSeq();
+
+        Map<Long, ChangeLogEntry> latestCarChanges = new LinkedHashMap<>();
+        Map<Long, ChangeLogEntry> latestOrderChanges = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            Map<Long, ChangeLogEntry> latest = entry.getEntityType() == ChangeLogEntry.EntityType.CAR
+                    ? latestCarChanges : latestOrderChanges;
+            latest.put(entry.getEntityId(), entry);
+        }
+
+        Map<Long, Car> cars = carRepository.findAllById(upsertedIds(latestCarChanges)).stream()
+                .collect(Collectors.toMap(Car::getId, Function.identity()));
+        Map<Long, Order> orders = orderRepository.findAllById(upsertedIds(latestOrderChanges), true).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<ChangeResponse> changes = new ArrayList<>(latestCarChanges.size() + latestOrderChanges.size());
+        latestCarChanges.values().forEach(entry -> {
+            Car car = cars.get(entry.getEntityId());
+            changes.add(toChange(entry, "car", car != null ? CarResponse.fromEntity(car) : null, null));
+        });
+        latestOrderChanges.values().forEach(entry -> {
+            Order order = orders.get(entry.getEntityId());
+            changes.add(toChange(entry, "order", null, order != null ? OrderResponse.fromEntity(order) : null));
+        });
+        changes.sort(Comparator.comparing(ChangeResponse::getSeq));
+
+        return ChangeFeedResponse.builder()
+                .changes(changes)
+                .nextSince(nextSince)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static List<Long> upsertedIds(Map<Long, ChangeLogEntry> latestChanges) {
+        return latestChanges.values().stream()
+                .filter(entry -> entry.getOperation() == ChangeLogEntry.Operation.UPSERT)
+                .map(ChangeLogEntry::getEntityId)
+                .collect(Collectors.toList());
+    }
+
+    private static ChangeResponse toChange(ChangeLogEntry entry, String type, CarResponse car, OrderResponse order) {
+        // an upsert whose entity is gone was deleted after this page; report its final state
+        boolean deleted = car == null && order == null;
+        return ChangeResponse.builder()
+                .seq(entry.getSeq())
+                .type(type)
+                .id(entry.getEntityId())
+                .op(deleted ? "delete" : "upsert")
+                .car(car)
+                .order(order)
+                .build();
+    }
+}
@@ -0,0 +1,337 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.config.ReadOnly;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order counts, booked days and revenue per status, car and month, kept as {@link LongAdder} counters
+ * and updated by the services whenever an order is created or changes status, so that
+ * {@code GET /stats/fleet} and {@code GET /stats/revenue} only read counters.
+ * <p>
+ * Revenue is the total price of orders that are {@code PAID}, {@code ACTIVE} or {@code COMPLETED}.
+ * Booked days count every order that is not {@code REJECTED}, with days as {@link PricingRules#days}
+ * counts them. An order is attributed to the month of its start date.
+ * <p>
+ * The maps both endpoints return are built from the counters at most once per
+ * {@code ilaba.stats.view-millis} (default 1000), and only if anything was counted since, so a request
+ * does not walk every car and month; the responses may lag the counters by that long.
+ * <p>
+ * The counters are rebuilt from {@code orders} and {@code orders_archive} at startup and then every
+ * {@code ilaba.stats.rebuild-interval-minutes}. A failed startup rebuild is retried every
+ * {@code ilaba.stats.retry-seconds} (default 10) until one succeeds. The rebuild splits the id range into a fork/join task
+ * tree that scans ranges of {@code ilaba.stats.scan-range} ids in parallel on the read replica. Each node
+ * only sees its own events between rebuilds, and an order changed during a rebuild may be off until the
+ * next one.
+ */
+@ApplicationScoped
+@Slf4j
+public class FleetStatistics {
+
+    private static final Set<Order.Status> REVENUE_STATUSES =
+            EnumSet.of(Order.Status.PAID, Order.Status.ACTIVE, Order.Status.COMPLETED);
+
+    private final int scanRange = Integer.getInteger("ilaba.stats.scan-range", 20_000);
+    private final int parallelism = Integer.getInteger("ilaba.stats.rebuild-parallelism", 4);
+    private final long rebuildIntervalMinutes = Long.getLong("ilaba.stats.rebuild-interval-minutes", 15);
+    private final long retrySeconds = Long.getLong("ilaba.stats.retry-seconds", 10);
+    private final long viewNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("ilaba.stats.view-millis", 1000));
+
+    private volatile Counters counters = new Counters();
+    private volatile Views views;
+    private volatile boolean ready;
+
+    @Inject
+    @ReadOnly
+    private EntityManagerFactory readOnlyEntityManagerFactory;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        rebuildOrRetry();
+        if (rebuildIntervalMinutes > 0) {
+            scheduler.scheduleWithFixedDelay("fleet-statistics", this::rebuild,
+                    rebuildIntervalMinutes, rebuildIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Rebuilds the counters, and on failure tries again after {@code ilaba.stats.retry-seconds} until a
+     * rebuild, this one or a periodic one, has succeeded.
+     */
+    void rebuildOrRetry() {
+        if (ready) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Fleet statistics rebuild failed, retrying in {} s", retrySeconds, e);
+            scheduler.schedule("fleet-statistics-retry", this::rebuildOrRetry, retrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void orderCreated(Order order) {
+        counters.add(OrderFacts.of(order), 1);
+    }
+
+    /**
+     * @param before the order as it was before the change; its car is kept even if the change detaches it
+     */
+    public void orderStatusChanged(OrderFacts before, Order.Status newStatus) {
+        if (before.status() == newStatus) {
+            return;
+        }
+        Counters current = counters;
+        current.add(before, -1);
+        current.add(before.withStatus(newStatus), 1);
+    }
+
+    /**
+     * Scans all orders into fresh counters and swaps them in.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        Counters fresh = new Counters();
+        long[] range;
+        EntityManager em = readOnlyEntityManagerFactory.createEntityManager();
+        try {
+            range = orderRepository.findIdRange(em);
+        } finally {
+            em.close();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ScanTask(fresh, range[0], range[1] + 1));
+        } finally {
+            pool.shutdown();
+        }
+        counters = fresh;
+        ready = true;
+        log.info("Fleet statistics rebuilt from ids {}..{} in {} ms", range[0], range[1],
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public Map<String, Object> fleet() {
+        return views().fleet();
+    }
+
+    public Map<String, Object> revenue() {
+        return views().revenue();
+    }
+
+    /**
+     * The current views, rebuilt first if the counters were swapped, or changed and the views are older
+     * than {@code ilaba.stats.view-millis}.
+     */
+    private Views views() {
+        Views current = views;
+        if (current != null && !current.isStale(counters, viewNanos)) {
+            return current;
+        }
+        synchronized (this) {
+            current = views;
+            if (current == null || current.isStale(counters, viewNanos)) {
+                current = Views.of(counters);
+                views = current;
+            }
+            return current;
+        }
+    }
+
+    private static BigDecimal fromMinor(long minor) {
+        return PricingEngine.fromMinor(minor);
+    }
+
+    private final class ScanTask extends RecursiveAction {
+
+        private final Counters target;
+        private final long fromId;
+        private final long toId;
+
+        private ScanTask(Counters target, long fromId, long toId) {
+            this.target = target;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId <= scanRange) {
+                scan();
+                return;
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            invokeAll(new ScanTask(target, fromId, middle), new ScanTask(target, middle, toId));
+        }
+
+        private void scan() {
+            EntityManager em = readOnlyEntityManagerFactory.createEntityManager();
+            try {
+                for (Object[] row : orderRepository.findStatisticsRows(em, fromId, toId)) {
+                    target.add(OrderFacts.fromRow(row), 1);
+                }
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * What the counters need to know about an order.
+     */
+    public record OrderFacts(Long carId, Order.Status status, LocalDate startDate, LocalDate endDate,
+                             BigDecimal totalPrice) {
+
+        public static OrderFacts of(Order order) {
+            return new OrderFacts(order.getCarDto() != null ? order.getCarDto().getId() : null, order.getStatus(),
+                    order.getStartDate(), order.getEndDate(), order.getTotalPrice());
+        }
+
+        /**
+         * Maps a row of {@link Order#STATISTICS_ROWS}.
+         */
+        static OrderFacts fromRow(Object[] row) {
+            return new OrderFacts(row[0] != null ? ((Number) row[0]).longValue() : null,
+                    Order.Status.valueOf((String) row[1]), toLocalDate(row[2]), toLocalDate(row[3]),
+                    (BigDecimal) row[4]);
+        }
+
+        private static LocalDate toLocalDate(Object value) {
+            return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+        }
+
+        OrderFacts withStatus(Order.Status newStatus) {
+            return new OrderFacts(carId, newStatus, startDate, endDate, totalPrice);
+        }
+    }
+
+    /**
+     * The {@link #fleet()} and {@link #revenue()} maps as built from {@code counters} after
+     * {@code changes} changes.
+     */
+    private record Views(Counters counters, long changes, long builtAt, Map<String, Object> fleet,
+                         Map<String, Object> revenue) {
+
+        static Views of(Counters counters) {
+            long changes = counters.changes.sum();
+            Map<String, Object> byStatus = new LinkedHashMap<>();
+            long total = 0;
+            for (Map.Entry<Order.Status, LongAdder> entry : counters.byStatus.entrySet()) {
+                long count = entry.getValue().sum();
+                byStatus.put(entry.getKey().name(), count);
+                total += count;
+            }
+            Map<Long, Object> fleetCars = new LinkedHashMap<>();
+            Map<Long, Object> revenueCars = new LinkedHashMap<>();
+            counters.byCar.forEach((carId, totals) -> {
+                fleetCars.put(carId, totals.toMap());
+                revenueCars.put(carId, fromMinor(totals.revenueMinor.sum()));
+            });
+            Map<String, Object> months = new LinkedHashMap<>();
+            counters.byMonth.forEach((month, totals) -> months.put(month.toString(), totals.toMap()));
+
+            Map<String, Object> fleet = new LinkedHashMap<>();
+            fleet.put("orders", total);
+            fleet.put("byStatus", byStatus);
+            fleet.put("cars", fleetCars);
+            Map<String, Object> revenue = new LinkedHashMap<>();
+            revenue.put("total", fromMinor(counters.revenueMinor.sum()));
+            revenue.put("months", months);
+            revenue.put("cars", revenueCars);
+            return new Views(counters, changes, System.nanoTime(), Collections.unmodifiableMap(fleet),
+                    Collections.unmodifiableMap(revenue));
+        }
+
+        boolean isStale(Counters current, long maxAgeNanos) {
+            return current != counters
+                    || (System.nanoTime() - builtAt >= maxAgeNanos && counters.changes.sum() != changes);
+        }
+    }
+
+    private static final class Counters {
+
+        private final Map<Order.Status, LongAdder> byStatus = new EnumMap<>(Order.Status.class);
+        private final ConcurrentMap<Long, Totals> byCar = new ConcurrentHashMap<>();
+        private final ConcurrentMap<YearMonth, Totals> byMonth = new ConcurrentHashMap<>();
+        private final LongAdder revenueMinor = new LongAdder();
+        private final LongAdder changes = new LongAdder();
+
+        private Counters() {
+            for (Order.Status status : Order.Status.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+        }
+
+        void add(OrderFacts facts, int sign) {
+            changes.increment();
+            byStatus.get(facts.status()).add(sign);
+            if (facts.status() == Order.Status.REJECTED) {
+                return;
+            }
+            long days = PricingRules.days(facts.startDate(), facts.endDate());
+            long revenue = REVENUE_STATUSES.contains(facts.status()) && facts.totalPrice() != null
+                    ? PricingEngine.toMinor(facts.totalPrice())
+                    : 0;
+            revenueMinor.add(sign * revenue);
+            byMonth.computeIfAbsent(YearMonth.from(facts.startDate()), month -> new Totals())
+                    .add(sign, days, revenue);
+            if (facts.carId() != null) {
+                byCar.computeIfAbsent(facts.carId(), carId -> new Totals()).add(sign, days, revenue);
+            }
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder bookedDays = new LongAdder();
+        private final LongAdder revenueMinor = new LongAdder();
+
+        void add(int sign, long days, long revenue) {
+            orders.add(sign);
+            bookedDays.add(sign * days);
+            revenueMinor.add(sign * revenue);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("orders", orders.sum());
+            map.put("bookedDays", bookedDays.sum());
+            map.put("revenue", fromMinor(revenueMinor.sum()));
+            return map;
+        }
+    }
+}
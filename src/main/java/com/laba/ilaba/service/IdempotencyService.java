@@ -0,0 +1,281 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.entity.IdempotencyRecord;
+import com.laba.ilaba.repository.IdempotencyRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and user, and answers retries with the
+ * stored reply.
+ * <ul>
+ *     <li>Replies of this node are kept in an LRU of {@code ilaba.idempotency.cache-entries} entries,
+ *     so a retry that lands on the same node never reaches the database.</li>
+ *     <li>Concurrent requests with the same key on this node wait for the one that is already running
+ *     and get its reply.</li>
+ *     <li>Across nodes a row in {@code idempotency_keys} is claimed before the request runs; a retry
+ *     that finds a live claim gets 409 and one that finds a stored reply gets that reply.</li>
+ * </ul>
+ * Replies with a status below 500 are kept for {@code ilaba.idempotency.ttl-seconds}. Server errors, 409
+ * and 429 are not stored: they say "retry", and a retry with the same key must run the request again
+ * rather than replay them. Reusing a key with a different request body is rejected
+ * with 422.
+ */
+@ApplicationScoped
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    private final long ttlSeconds = Long.getLong("ilaba.idempotency.ttl-seconds", 24 * 60 * 60);
+    private final long leaseSeconds = Long.getLong("ilaba.idempotency.lease-seconds", 60);
+    private final int purgeBatchSize = Integer.getInteger("ilaba.idempotency.purge-batch-size", 1000);
+    private final long purgeIntervalMinutes = Long.getLong("ilaba.idempotency.purge-interval-minutes", 10);
+
+    private final Clock clock;
+    private final int maxEntries;
+    private final Map<String, Stored> replies;
+    private final ConcurrentMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    @Inject
+    private IdempotencyRepository idempotencyRepository;
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    public IdempotencyService() {
+        this(Clock.systemUTC(), Integer.getInteger("ilaba.idempotency.cache-entries", 10_000));
+    }
+
+    IdempotencyService(Clock clock, int maxEntries) {
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+        this.replies = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > IdempotencyService.this.maxEntries;
+            }
+        };
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        scheduler.scheduleWithFixedDelay("idempotency-purge", this::purgeExpired,
+                purgeIntervalMinutes, purgeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Returns the reply of the first request made with this key and body, running {@code action} only
+     * if there is none yet.
+     *
+     * @param request canonical form of the request body, used to detect a key reused for another request
+     */
+    public Reply execute(String userEmail, String key, String request, Supplier<Reply> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopeKey = sha256(userEmail + '\n' + key);
+        String requestHash = sha256(request);
+
+        Stored cached = cached(scopeKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(scopeKey, mine);
+        if (running != null) {
+            log.debug("Waiting for in-flight request with the same idempotency key");
+            return replay(await(running), requestHash);
+        }
+        try {
+            Stored stored = runOnce(scopeKey, requestHash, action);
+            mine.complete(stored);
+            return stored.replayed() ? replay(stored, requestHash) : stored.reply();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopeKey, mine);
+        }
+    }
+
+    public void purgeExpired() {
+        synchronized (replies) {
+            long now = clock.millis();
+            replies.values().removeIf(stored -> stored.expiresAtMillis() <= now);
+        }
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            int total = 0;
+            int deleted;
+            do {
+                EntityTransaction transaction = em.getTransaction();
+                transaction.begin();
+                try {
+                    deleted = idempotencyRepository.purgeExpired(em, purgeBatchSize);
+                    transaction.commit();
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+                total += deleted;
+            } while (deleted == purgeBatchSize);
+            if (total > 0) {
+                log.info("Purged {} expired idempotency keys", total);
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private Stored runOnce(String scopeKey, String requestHash, Supplier<Reply> action) {
+        // Another request may have finished between the cache lookup and taking the in-flight slot.
+        Stored cached = cached(scopeKey);
+        if (cached != null) {
+            return cached.asReplayed();
+        }
+
+        if (!idempotencyRepository.claim(scopeKey, requestHash, leaseSeconds)) {
+            Optional<IdempotencyRecord> existing = idempotencyRepository.findLive(scopeKey);
+            if (existing.isPresent() && existing.get().getStatusCode() != null) {
+                IdempotencyRecord record = existing.get();
+                Stored stored = new Stored(new Reply(record.getStatusCode(), record.getBody(), true),
+                        record.getRequestHash(), clock.millis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+                remember(scopeKey, stored);
+                return stored;
+            }
+            throw new ClientErrorException("A request with this " + HEADER + " is still in progress", 409);
+        }
+
+        Reply reply;
+        try {
+            reply = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRepository.release(scopeKey);
+            throw e;
+        }
+
+        Stored stored = new Stored(reply, requestHash, clock.millis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        if (isTransient(reply.status())) {
+            idempotencyRepository.release(scopeKey);
+            return stored;
+        }
+        try {
+            idempotencyRepository.complete(scopeKey, reply.status(), reply.body(), ttlSeconds);
+        } catch (RuntimeException e) {
+            // The request itself succeeded; other nodes see the claim expire and retry instead of replaying.
+            log.error("Could not store reply for idempotency key", e);
+        }
+        remember(scopeKey, stored);
+        return stored;
+    }
+
+    private static boolean isTransient(int status) {
+        return status >= 500 || status == 409 || status == 429;
+    }
+
+    private Stored cached(String scopeKey) {
+        synchronized (replies) {
+            Stored stored = replies.get(scopeKey);
+            if (stored != null && stored.expiresAtMillis() <= clock.millis()) {
+                replies.remove(scopeKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String scopeKey, Stored stored) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (replies) {
+            replies.put(scopeKey, stored);
+        }
+    }
+
+    private Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.get(leaseSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ClientErrorException("A request with this " + HEADER + " is still in progress", 409);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for request with the same " + HEADER);
+        }
+    }
+
+    private static Reply replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new ClientErrorException(HEADER + " was already used for a different request", UNPROCESSABLE_ENTITY);
+        }
+        return new Reply(stored.reply().status(), stored.reply().body(), true);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Status and serialized body of a reply; {@code replayed} is true when it was not produced by this call.
+     */
+    public record Reply(int status, String body, boolean replayed) {
+        public Reply(int status, String body) {
+            this(status, body, false);
+        }
+    }
+
+    private record Stored(Reply reply, String requestHash, long expiresAtMillis) {
+        boolean replayed() {
+            return reply.replayed();
+        }
+
+        Stored asReplayed() {
+            return new Stored(new Reply(reply.status(), reply.body(), true), requestHash, expiresAtMillis);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic maintenance of the partitioned {@code orders} table: keeps monthly partitions created
+ * {@code ilaba.archive.months-ahead} months in advance, and moves completed and rejected orders older
+ * than {@code ilaba.archive.min-age-days} into {@code orders_archive} in batches of
+ * {@code ilaba.archive.batch-size}, one transaction per batch. Runs every
+ * {@code ilaba.archive.interval-minutes} unless {@code ilaba.archive.enabled} is false.
+ */
+@ApplicationScoped
+@Slf4j
+public class OrderArchiveJob {
+
+    private final boolean enabled = Boolean.parseBoolean(System.getProperty("ilaba.archive.enabled", "true"));
+    private final int minAgeDays = Integer.getInteger("ilaba.archive.min-age-days", 180);
+    private final int batchSize = Integer.getInteger("ilaba.archive.batch-size", 1000);
+    private final int monthsAhead = Integer.getInteger("ilaba.archive.months-ahead", 3);
+    private final long intervalMinutes = Long.getLong("ilaba.archive.interval-minutes", 60);
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!enabled) {
+            log.info("Order archival is disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay("order-archive", this::run, 1, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void run() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                orderRepository.createMonthlyPartition(em, current.plusMonths(i));
+            }
+            int archived = archiveClosedOrders(em, LocalDate.now().minusDays(minAgeDays));
+            if (archived > 0) {
+                log.info("Archived {} closed orders", archived);
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private int archiveClosedOrders(EntityManager em, LocalDate createdBefore) {
+        int total = 0;
+        List<Long> moved;
+        do {
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                moved = orderRepository.archiveClosedOrders(em, createdBefore, batchSize);
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+            entityCacheManager.ordersChanged(moved);
+            total += moved.size();
+        } while (moved.size() == batchSize);
+        return total;
+    }
+}
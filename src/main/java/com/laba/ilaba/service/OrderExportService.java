@@ -0,0 +1,151 @@
+package com.laba.ilaba.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.StreamingOutput;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Writes order history straight from the JDBC cursor to the response stream. Nothing per order is
+ * kept once its line is written, so heap use is the same for a hundred orders or a few million.
+ */
+@ApplicationScoped
+@Slf4j
+public class OrderExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final String CSV_HEADER = "id,userId,carId,startDate,endDate,totalPrice,status,createdAt\n";
+
+    private final int fetchSize = Integer.getInteger("ilaba.export.fetch-size", 1000);
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    public StreamingOutput exportOrders(Format format, LocalDate from, LocalDate to) {
+        log.info("Exporting orders: format={}, from={}, to={}", format, from, to);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        return output -> {
+            try {
+                if (format == Format.CSV) {
+                    writeCsv(output, from, to);
+                } else {
+                    writeNdjson(output, from, to);
+                }
+            } catch (SQLException e) {
+                throw new IOException("Order export failed", e);
+            }
+        };
+    }
+
+    private void writeCsv(OutputStream output, LocalDate from, LocalDate to) throws IOException, SQLException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        orderRepository.streamExportRows(from, to, fetchSize, row -> {
+            writer.write(Long.toString(row.getLong(1)));
+            writer.write(',');
+            writeNullable(writer, row.getString(2));
+            writer.write(',');
+            writeNullable(writer, row.getString(3));
+            writer.write(',');
+            writer.write(row.getString(4));
+            writer.write(',');
+            writer.write(row.getString(5));
+            writer.write(',');
+            writer.write(row.getBigDecimal(6).toPlainString());
+            writer.write(',');
+            writer.write(row.getString(7).toLowerCase(Locale.ROOT));
+            writer.write(',');
+            writer.write(row.getString(8));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void writeNdjson(OutputStream output, LocalDate from, LocalDate to) throws IOException, SQLException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            orderRepository.streamExportRows(from, to, fetchSize, row -> {
+                generator.writeStartObject();
+                generator.writeNumberField("id", row.getLong(1));
+                writeNullableId(generator, "userId", row, 2);
+                writeNullableId(generator, "carId", row, 3);
+                generator.writeStringField("startDate", row.getString(4));
+                generator.writeStringField("endDate", row.getString(5));
+                BigDecimal totalPrice = row.getBigDecimal(6);
+                generator.writeNumberField("totalPrice", totalPrice);
+                generator.writeStringField("status", row.getString(7).toLowerCase(Locale.ROOT));
+                generator.writeStringField("createdAt", row.getString(8));
+                generator.writeEndObject();
+            });
+            if (generator.getOutputContext().getEntryCount() > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void writeNullable(Writer writer, String value) throws IOException {
+        if (value != null) {
+            writer.write(value);
+        }
+    }
+
+    private static void writeNullableId(JsonGenerator generator, String field, ResultSet row, int column)
+            throws IOException, SQLException {
+        long value = row.getLong(column);
+        if (row.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.dto.OrderIntakeResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.ws.rs.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Optional asynchronous path for {@code POST /orders}, switched on with {@code ilaba.intake.async}.
+ * Validated orders are put on a queue of {@code ilaba.intake.queue-capacity} entries and answered with
+ * 202; a single writer thread drains up to {@code ilaba.intake.max-batch} of them at a time and inserts
+ * the orders and the car updates of a batch in one transaction. Orders that arrive while a batch is
+ * being committed make up the next one, so the batch size grows with the load instead of paying one
+ * commit per order.
+ * <p>
+ * Each queued order holds its car's claim in {@link BookingCoordinator} until it is written or fails,
+ * so a second order for the same car is rejected before it is queued. Queue and intake states are kept
+ * in memory: {@code GET /orders/{id}} reports a queued or failed order only on the node that took it.
+ * <p>
+ * On shutdown the intake stops taking orders (submitters get 503) and every order already answered with
+ * 202 is written, or marked failed, before {@link #stop()} returns: the writer finishes the queue and
+ * whatever is left, e.g. by a submit racing the shutdown, is written on the stopping thread.
+ */
+@ApplicationScoped
+@Slf4j
+public class OrderIntake {
+
+    private final boolean enabled = Boolean.parseBoolean(System.getProperty("ilaba.intake.async", "false"));
+    private final int maxBatch = Integer.getInteger("ilaba.intake.max-batch", 200);
+    private final long failedRetentionMillis =
+            TimeUnit.SECONDS.toMillis(Long.getLong("ilaba.intake.failed-retention-seconds", 600));
+
+    private final BlockingQueue<PendingOrder> queue =
+            new ArrayBlockingQueue<>(Integer.getInteger("ilaba.intake.queue-capacity", 10_000));
+    private final ConcurrentMap<Long, IntakeState> states = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread writer;
+    private long lastPurgeMillis;
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
+    @Inject
+    private BookingCoordinator bookingCoordinator;
+
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
+    @Inject
+    private FleetStatistics fleetStatistics;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "ilaba-order-intake");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Asynchronous order intake started, max batch {}", maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingOrder> batch = new ArrayList<>(maxBatch);
+        int left = 0;
+        while (queue.drainTo(batch, maxBatch) > 0) {
+            left += batch.size();
+            writeBatch(batch);
+            batch.clear();
+        }
+        if (writer != null || left > 0) {
+            log.info("Asynchronous order intake stopped, {} orders written on shutdown", left);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an order whose car claim the caller holds. Throws {@link ServiceUnavailableException} when
+     * the queue is full or the intake is shutting down; the caller keeps the claim in that case.
+     */
+    public OrderIntakeResponse submit(PendingOrder order) {
+        if (stopping) {
+            throw new ServiceUnavailableException("Order intake is shutting down, retry shortly", 1L);
+        }
+        OrderIntakeResponse response = new OrderIntakeResponse(order.id(), OrderIntakeResponse.State.QUEUED, null, null);
+        states.put(order.id(), new IntakeState(response, 0));
+        if (!queue.offer(order)) {
+            states.remove(order.id());
+            log.warn("Order intake queue is full, rejecting order for car {}", order.carId());
+            throw new ServiceUnavailableException("Too many orders in progress, retry shortly", 1L);
+        }
+        // Raced a shutdown whose final drain may already be done: take the order back unless it was written.
+        if (stopping && queue.remove(order)) {
+            states.remove(order.id());
+            throw new ServiceUnavailableException("Order intake is shutting down, retry shortly", 1L);
+        }
+        return response;
+    }
+
+    /**
+     * State of an order that was queued on this node and is not written yet, or failed to be written.
+     */
+    public Optional<OrderIntakeResponse> status(Long id) {
+        IntakeState state = states.get(id);
+        return state == null ? Optional.empty() : Optional.of(state.response());
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                purgeFailed();
+                PendingOrder first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. If the transaction fails, every order is retried on its own,
+     * so one bad order does not fail the others.
+     */
+    void writeBatch(List<PendingOrder> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Could not write queued order {}", batch.get(0).id(), e);
+                fail(batch.get(0), "Order could not be saved");
+                return;
+            }
+            log.warn("Batch of {} queued orders failed, writing them one by one", batch.size(), e);
+            for (PendingOrder order : batch) {
+                writeBatch(List.of(order));
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        List<PendingOrder> placed = new ArrayList<>(batch.size());
+        List<PendingOrder> unavailable = new ArrayList<>();
+        List<Car> bookedCars = new ArrayList<>(batch.size());
+        List<Order> orders = new ArrayList<>(batch.size());
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                Map<Long, Car> cars = carRepository.findAllByIdForWrite(em,
+                                batch.stream().map(PendingOrder::carId).collect(Collectors.toSet()))
+                        .stream()
+                        .collect(Collectors.toMap(Car::getId, Function.identity()));
+                for (PendingOrder pending : batch) {
+                    Car car = cars.get(pending.carId());
+                    if (car == null || !car.getIsAvailable()) {
+                        unavailable.add(pending);
+                        continue;
+                    }
+                    car.setIsAvailable(false);
+                    bookedCars.add(car);
+                    placed.add(pending);
+                    orders.add(Order.builder()
+                            .id(pending.id())
+                            .userDto(em.getReference(User.class, pending.userId()))
+                            .carDto(car)
+                            .startDate(pending.startDate())
+                            .endDate(pending.endDate())
+                            .totalPrice(pending.totalPrice())
+                            .status(Order.Status.PENDING)
+                            .build());
+                }
+                orderRepository.persistAll(em, orders);
+                changeLogRepository.record(em, ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT,
+                        orders.stream().map(Order::getId).collect(Collectors.toList()));
+                changeLogRepository.record(em, ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT,
+                        bookedCars.stream().map(Car::getId).collect(Collectors.toList()));
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            em.close();
+        }
+
+        if (!bookedCars.isEmpty()) {
+            entityCacheManager.carsChanged(bookedCars);
+        }
+        for (PendingOrder order : placed) {
+            states.remove(order.id());
+            bookingCoordinator.release(order.carId(), order, true);
+            carEventPublisher.availabilityChanged(order.carId(), false);
+        }
+        orders.forEach(fleetStatistics::orderCreated);
+        for (PendingOrder order : unavailable) {
+            fail(order, "Car is not available for rent");
+        }
+        log.debug("Wrote {} queued orders, {} failed", placed.size(), unavailable.size());
+    }
+
+    private void fail(PendingOrder order, String error) {
+        OrderIntakeResponse response = new OrderIntakeResponse(order.id(), OrderIntakeResponse.State.FAILED, null, error);
+        states.put(order.id(), new IntakeState(response, System.currentTimeMillis()));
+        bookingCoordinator.release(order.carId(), order, false);
+    }
+
+    private void purgeFailed() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis < 1000) {
+            return;
+        }
+        lastPurgeMillis = now;
+        long cutoff = now - failedRetentionMillis;
+        states.values().removeIf(state -> state.failedAtMillis() > 0 && state.failedAtMillis() < cutoff);
+    }
+
+    /**
+     * An order that passed validation and waits to be written. The id is taken from the sequence up
+     * front so the client can poll for it.
+     */
+    public record PendingOrder(long id, Long userId, Long carId, LocalDate startDate, LocalDate endDate,
+                               BigDecimal totalPrice) {}
+
+    private record IntakeState(OrderIntakeResponse response, long failedAtMillis) {}
+}
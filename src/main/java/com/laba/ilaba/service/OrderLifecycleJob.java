@@ -0,0 +1,160 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import com.laba.ilaba.repository.OrderRepository.TransitionedOrder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves orders through their lifecycle without waiting for a {@code PATCH}:
+ * <ul>
+ *     <li>{@code PAID}/{@code ACTIVE} orders whose end date has passed become {@code COMPLETED},</li>
+ *     <li>{@code PAID} orders whose rental period has started become {@code ACTIVE},</li>
+ *     <li>{@code PENDING} orders still unpaid after their start date become {@code REJECTED} and, as with
+ *     a rejecting {@code PATCH}, are detached from their car and user.</li>
+ * </ul>
+ * Each transition runs as set-based {@code UPDATE ... RETURNING} batches of {@code ilaba.lifecycle.batch-size},
+ * one transaction per batch, which also releases the cars of completed and expired orders and records
+ * the change log; {@link FleetStatistics} hears about each transition once its batch has committed.
+ * Due rows are claimed with {@code SKIP LOCKED}, so several nodes can run the job at once without
+ * blocking each other or user requests. Runs every {@code ilaba.lifecycle.interval-seconds} unless
+ * {@code ilaba.lifecycle.enabled} is false.
+ */
+@ApplicationScoped
+@Slf4j
+public class OrderLifecycleJob {
+
+    private final boolean enabled = Boolean.parseBoolean(System.getProperty("ilaba.lifecycle.enabled", "true"));
+    private final int batchSize = Integer.getInteger("ilaba.lifecycle.batch-size", 500);
+    private final long intervalSeconds = Long.getLong("ilaba.lifecycle.interval-seconds", 60);
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private OrderRepository orderRepository;
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private ChangeLogRepository changeLogRepository;
+
+    @Inject
+    private EntityCacheManager entityCacheManager;
+
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
+    @Inject
+    private OrderLifecycleMetrics metrics;
+
+    @Inject
+    private FleetStatistics fleetStatistics;
+
+    @Inject
+    private BackgroundScheduler scheduler;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!enabled) {
+            log.info("Order lifecycle job is disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay("order-lifecycle", this::run, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void run() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            RunTotals totals = new RunTotals();
+            int completed = runTransition(em, Order.COMPLETE_ENDED, Order.Status.COMPLETED, today, true, totals);
+            int activated = runTransition(em, Order.ACTIVATE_STARTED, Order.Status.ACTIVE, today, false, totals);
+            int expired = runTransition(em, Order.EXPIRE_UNPAID, Order.Status.REJECTED, today, true, totals);
+            long duration = System.nanoTime() - start;
+            metrics.recordRun(completed, activated, expired, totals.carsReleased, totals.batches, duration);
+            if (completed + activated + expired > 0) {
+                log.info("Order lifecycle: {} completed, {} activated, {} expired, {} cars released in {} ms",
+                        completed, activated, expired, totals.carsReleased, duration / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            metrics.recordFailedRun();
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private int runTransition(EntityManager em, String transitionQuery, Order.Status newStatus, LocalDate today,
+                              boolean releasesCars, RunTotals totals) {
+        int total = 0;
+        List<TransitionedOrder> batch;
+        do {
+            List<Long> releasedCars;
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                batch = orderRepository.transitionDueOrders(em, transitionQuery, today, batchSize);
+                List<Long> orderIds = batch.stream().map(TransitionedOrder::orderId).collect(Collectors.toList());
+                changeLogRepository.record(em, ChangeLogEntry.EntityType.ORDER, ChangeLogEntry.Operation.UPSERT, orderIds);
+                releasedCars = List.of();
+                if (releasesCars) {
+                    Set<Long> carIds = batch.stream()
+                            .map(TransitionedOrder::carId)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toCollection(LinkedHashSet::new));
+                    releasedCars = carRepository.releaseCars(em, carIds);
+                    changeLogRepository.record(em, ChangeLogEntry.EntityType.CAR, ChangeLogEntry.Operation.UPSERT, releasedCars);
+                }
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                log.error("Order lifecycle batch failed: {}", transitionQuery, e);
+                throw e;
+            }
+            if (!batch.isEmpty()) {
+                totals.batches++;
+                entityCacheManager.ordersChanged(batch.stream().map(TransitionedOrder::orderId).collect(Collectors.toList()));
+            }
+            for (TransitionedOrder order : batch) {
+                fleetStatistics.orderStatusChanged(new FleetStatistics.OrderFacts(order.carId(),
+                        order.previousStatus(), order.startDate(), order.endDate(), order.totalPrice()), newStatus);
+            }
+            if (!releasedCars.isEmpty()) {
+                entityCacheManager.carsChangedById(releasedCars);
+                releasedCars.forEach(carId -> carEventPublisher.availabilityChanged(carId, true));
+                totals.carsReleased += releasedCars.size();
+            }
+            total += batch.size();
+        } while (batch.size() == batchSize);
+        return total;
+    }
+
+    private static final class RunTotals {
+        private int batches;
+        private int carsReleased;
+    }
+}
@@ -0,0 +1,62 @@
+package com.laba.ilaba.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals and last-run figures of {@link OrderLifecycleJob}, served by {@code GET /metrics/lifecycle}.
+ */
+@ApplicationScoped
+public class OrderLifecycleMetrics {
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder activated = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder carsReleased = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public void recordRun(int completedOrders, int activatedOrders, int expiredOrders, int releasedCars,
+                          int batchCount, long durationNanos) {
+        runs.increment();
+        completed.add(completedOrders);
+        activated.add(activatedOrders);
+        expired.add(expiredOrders);
+        carsReleased.add(releasedCars);
+        batches.add(batchCount);
+
+        int transitioned = completedOrders + activatedOrders + expiredOrders;
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("completed", completedOrders);
+        run.put("activated", activatedOrders);
+        run.put("expired", expiredOrders);
+        run.put("carsReleased", releasedCars);
+        run.put("batches", batchCount);
+        run.put("durationMillis", durationNanos / 1_000_000.0);
+        run.put("ordersPerSecond", durationNanos == 0 ? 0.0 : transitioned * 1_000_000_000.0 / durationNanos);
+        lastRun = run;
+    }
+
+    public void recordFailedRun() {
+        failedRuns.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("runs", runs.sum());
+        snapshot.put("failedRuns", failedRuns.sum());
+        snapshot.put("completed", completed.sum());
+        snapshot.put("activated", activated.sum());
+        snapshot.put("expired", expired.sum());
+        snapshot.put("carsReleased", carsReleased.sum());
+        snapshot.put("batches", batches.sum());
+        snapshot.put("lastRun", lastRun);
+        return snapshot;
+    }
+}
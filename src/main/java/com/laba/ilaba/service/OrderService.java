@@ -1,7 +1,11 @@
 package com.laba.ilaba.service;
 
+import com.laba.ilaba.dto.MultiGetResponse;
+import com.laba.ilaba.dto.OrderIntakeResponse;
 import com.laba.ilaba.dto.OrderRequest;
 import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.dto.OrderStatusBatchResponse;
+import com.laba.ilaba.dto.OrderStatusUpdate;
 import com.laba.ilaba.entity.Car;
 import com.laba.ilaba.entity.Order;
 import com.laba.ilaba.entity.User;
@@ -16,8 +20,16 @@ import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -36,25 +48,58 @@ public class OrderService {
     @Inject
     private CarService carService;
 
+    @Inject
+    private CarEventPublisher carEventPublisher;
+
+    @Inject
+    private BookingCoordinator bookingCoordinator;
+
+    @Inject
+    private OrderIntake orderIntake;
+
+    @Inject
+    private PricingEngine pricingEngine;
+
+    @Inject
+    private FleetStatistics fleetStatistics;
+
+    static final int MAX_BATCH_SIZE = 500;
+
     public List<OrderResponse> getAllOrders() {
         log.info("Getting all orders");
-        return orderRepository.findAll().stream()
-                .map(OrderResponse::fromEntity)
-                .collect(Collectors.toList());
+        return orderRepository.findAllResponses();
     }
 
-    public OrderResponse getOrderById(Long id) {
-        log.info("Getting order by id: {}", id);
-        Order order = orderRepository.findById(id)
+    public OrderResponse getOrderById(Long id, boolean includeArchived) {
+        log.info("Getting order by id: {}, includeArchived: {}", id, includeArchived);
+        Order order = orderRepository.findById(id, includeArchived)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + id));
         return OrderResponse.fromEntity(order);
     }
 
-    public List<OrderResponse> getOrdersByUser(String userEmail) {
-        log.info("Getting orders for user: {}", userEmail);
+    public MultiGetResponse<OrderResponse> getOrdersByIds(List<Long> ids) {
+        log.info("Getting orders by ids: {}", ids);
+        Map<Long, Order> orders = orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<OrderResponse> found = new ArrayList<>(orders.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Order order = orders.get(id);
+            if (order != null) {
+                found.add(OrderResponse.fromEntity(order));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResponse<>(found, missing);
+    }
+
+    public List<OrderResponse> getOrdersByUser(String userEmail, boolean includeArchived) {
+        log.info("Getting orders for user: {}, includeArchived: {}", userEmail, includeArchived);
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new NotFoundException("User not found with email: " + userEmail));
-        return orderRepository.findByUser(user).stream()
+        return orderRepository.findByUser(user, includeArchived).stream()
                 .map(OrderResponse::fromEntity)
                 .collect(Collectors.toList());
     }
@@ -64,15 +109,52 @@ public class OrderService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new NotFoundException("User not found with email: " + userEmail));
 
-        Order order = orderRepository.findCurrentOrderByUser(user)
+        return findCurrentOrder(user)
                 .orElseThrow(() -> new NotFoundException("No active order found for user: " + userEmail));
+    }
 
-        return OrderResponse.fromEntity(order);
+    /**
+     * Current order of an already resolved user, for callers that have looked the user up themselves.
+     */
+    public Optional<OrderResponse> findCurrentOrder(User user) {
+        return orderRepository.findCurrentOrderByUser(user).map(OrderResponse::fromEntity);
     }
 
     @Transactional
     public OrderResponse createOrder(OrderRequest orderRequest, String userEmail) {
         log.info("Creating order for user: {}, carId: {}", userEmail, orderRequest.getCarId());
+        if (orderRequest.getCarId() == null) {
+            throw new BadRequestException("Car id is required");
+        }
+        validateDates(orderRequest);
+
+        User user = userRepository.findByEmailForWrite(userEmail)
+                .orElseThrow(() -> new NotFoundException("User not found with email: " + userEmail));
+
+        Car car = carRepository.findById(orderRequest.getCarId())
+                .orElseThrow(() -> new NotFoundException("Car not found with id: " + orderRequest.getCarId()));
+
+        if (!car.getIsAvailable()) {
+            log.warn("Attempted to order unavailable car: {}", car.getId());
+            throw new BadRequestException("Car is not available for rent");
+        }
+
+        // Priced before claiming, so a request that fails validation never holds up the car's bookings.
+        priceOrder(orderRequest, car);
+        return bookingCoordinator.book(car.getId(), () -> placeOrder(orderRequest, user));
+    }
+
+    /**
+     * Validates an order like {@link #createOrder(OrderRequest, String)} and hands it to {@link OrderIntake}
+     * instead of writing it. Lookups go to the read side; the intake writer checks the car again when it
+     * writes the order.
+     */
+    public OrderIntakeResponse submitOrder(OrderRequest orderRequest, String userEmail) {
+        log.info("Queueing order for user: {}, carId: {}", userEmail, orderRequest.getCarId());
+        if (orderRequest.getCarId() == null) {
+            throw new BadRequestException("Car id is required");
+        }
+        validateDates(orderRequest);
 
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new NotFoundException("User not found with email: " + userEmail));
@@ -85,6 +167,37 @@ public class OrderService {
             throw new BadRequestException("Car is not available for rent");
         }
 
+        BigDecimal totalPrice = priceOrder(orderRequest, car);
+
+        OrderIntake.PendingOrder pending = new OrderIntake.PendingOrder(orderRepository.nextId(), user.getId(),
+                car.getId(), orderRequest.getStartDate(), orderRequest.getEndDate(), totalPrice);
+        if (!bookingCoordinator.claim(car.getId(), pending)) {
+            throw BookingCoordinator.inProgress(car.getId());
+        }
+        try {
+            OrderIntakeResponse response = orderIntake.submit(pending);
+            log.info("Order queued with id: {}", pending.id());
+            return response;
+        } catch (RuntimeException e) {
+            bookingCoordinator.release(car.getId(), pending, false);
+            throw e;
+        }
+    }
+
+    /**
+     * The server-side price of the order. A total sent by the client must match it, so a client with
+     * stale prices or rules gets an error instead of an order at the wrong price.
+     */
+    private BigDecimal priceOrder(OrderRequest orderRequest, Car car) {
+        PricingEngine.Quote quote = pricingEngine.quote(car, orderRequest.getStartDate(), orderRequest.getEndDate());
+        if (orderRequest.getTotalPrice() != null && orderRequest.getTotalPrice().compareTo(quote.total()) != 0) {
+            log.warn("Order total {} does not match quote {} for car {}", orderRequest.getTotalPrice(), quote.total(), car.getId());
+            throw new BadRequestException("Total price does not match the quote, expected " + quote.total());
+        }
+        return quote.total();
+    }
+
+    private void validateDates(OrderRequest orderRequest) {
         if (orderRequest.getStartDate().isBefore(LocalDate.now())) {
             log.warn("Attempted to create order with start date in the past: {}", orderRequest.getStartDate());
             throw new BadRequestException("Start date cannot be in the past");
@@ -95,17 +208,34 @@ public class OrderService {
                     orderRequest.getStartDate(), orderRequest.getEndDate());
             throw new BadRequestException("End date cannot be before start date");
         }
+    }
+
+    /**
+     * The claimed part of {@link #createOrder(OrderRequest, String)}: reads the car again for write, as
+     * another booking may have taken it while this one waited, and prices it again from the quote cache.
+     */
+    private OrderResponse placeOrder(OrderRequest orderRequest, User user) {
+        Car car = carRepository.findByIdForWrite(orderRequest.getCarId())
+                .orElseThrow(() -> new NotFoundException("Car not found with id: " + orderRequest.getCarId()));
+
+        if (!car.getIsAvailable()) {
+            log.warn("Attempted to order unavailable car: {}", car.getId());
+            throw new BadRequestException("Car is not available for rent");
+        }
+
+        BigDecimal totalPrice = priceOrder(orderRequest, car);
 
         Order order = Order.builder()
                 .userDto(user)
                 .carDto(car)
                 .startDate(orderRequest.getStartDate())
                 .endDate(orderRequest.getEndDate())
-                .totalPrice(orderRequest.getTotalPrice())
+                .totalPrice(totalPrice)
                 .status(Order.Status.PENDING)
                 .build();
 
         Order savedOrder = orderRepository.save(order);
+        fleetStatistics.orderCreated(savedOrder);
 
         // Mark car as unavailable
         carService.updateCarAvailability(car.getId(), false);
@@ -118,7 +248,7 @@ public class OrderService {
     public OrderResponse updateOrderStatus(Long orderId, String status, String userEmail) {
         log.info("Updating order status: orderId={}, status={}, user={}", orderId, status, userEmail);
 
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForWrite(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + orderId));
 
         User user = userRepository.findByEmail(userEmail)
@@ -138,8 +268,10 @@ public class OrderService {
             throw new BadRequestException("Invalid order status: " + status);
         }
 
+        FleetStatistics.OrderFacts before = FleetStatistics.OrderFacts.of(order);
         order.setStatus(newStatus);
         Order updatedOrder = orderRepository.save(order);
+        fleetStatistics.orderStatusChanged(before, newStatus);
 
         // If order is completed or rejected, make car available again
         if (newStatus == Order.Status.COMPLETED || newStatus == Order.Status.REJECTED) {
@@ -171,4 +303,98 @@ public class OrderService {
         log.info("Order status updated successfully: orderId={}, status={}", orderId, newStatus);
         return OrderResponse.fromEntity(updatedOrder);
     }
+
+    /**
+     * Applies many status changes with the same rules as {@link #updateOrderStatus(Long, String, String)}:
+     * completing or rejecting an order makes its car available again, and rejecting also detaches the
+     * order from its car and user. All orders (with their cars) are loaded in one query and written in
+     * one transaction; items that cannot be applied are reported individually and do not fail the batch.
+     */
+    public OrderStatusBatchResponse updateOrderStatuses(List<OrderStatusUpdate> updates, String userEmail) {
+        if (updates == null || updates.isEmpty()) {
+            throw new BadRequestException("No status updates given");
+        }
+        if (updates.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " status updates per batch");
+        }
+        log.info("Updating status of {} orders, user={}", updates.size(), userEmail);
+        userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new NotFoundException("User not found with email: " + userEmail));
+
+        List<OrderStatusBatchResponse.ItemResult> results = new ArrayList<>(updates.size());
+        Map<Long, Order.Status> newStatuses = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (OrderStatusUpdate update : updates) {
+            Long id = update.getId();
+            if (id == null) {
+                results.add(failure(null, 400, "Missing order id"));
+            } else if (!seen.add(id)) {
+                results.add(failure(id, 400, "Duplicate order id in batch: " + id));
+            } else {
+                try {
+                    newStatuses.put(id, Order.Status.valueOf(String.valueOf(update.getStatus()).toUpperCase()));
+                    results.add(null);
+                } catch (IllegalArgumentException e) {
+                    results.add(failure(id, 400, "Invalid order status: " + update.getStatus()));
+                }
+            }
+        }
+
+        Map<Long, Order> orders = orderRepository.findAllByIdForWrite(newStatuses.keySet()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> changedOrders = new ArrayList<>(orders.size());
+        List<FleetStatistics.OrderFacts> before = new ArrayList<>(orders.size());
+        Map<Long, Car> releasedCars = new LinkedHashMap<>();
+        for (Map.Entry<Long, Order.Status> change : newStatuses.entrySet()) {
+            Order order = orders.get(change.getKey());
+            if (order == null) {
+                continue;
+            }
+            Order.Status newStatus = change.getValue();
+            before.add(FleetStatistics.OrderFacts.of(order));
+            order.setStatus(newStatus);
+            Car car = order.getCarDto();
+            if (car != null && (newStatus == Order.Status.COMPLETED || newStatus == Order.Status.REJECTED)) {
+                car.setIsAvailable(true);
+                if (newStatus == Order.Status.REJECTED) {
+                    car.setCurrentOrderId(null);
+                }
+                releasedCars.put(car.getId(), car);
+            }
+            if (newStatus == Order.Status.REJECTED) {
+                order.setCarDto(null);
+                order.setUserDto(null);
+            }
+            changedOrders.add(order);
+        }
+
+        if (!changedOrders.isEmpty()) {
+            orderRepository.saveStatusChanges(changedOrders, new ArrayList<>(releasedCars.values()));
+            releasedCars.keySet().forEach(carId -> carEventPublisher.availabilityChanged(carId, true));
+            for (int i = 0; i < changedOrders.size(); i++) {
+                fleetStatistics.orderStatusChanged(before.get(i), changedOrders.get(i).getStatus());
+            }
+        }
+
+        int updated = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            Long id = updates.get(i).getId();
+            Order order = orders.get(id);
+            if (order == null) {
+                results.set(i, failure(id, 404, "Order not found with id: " + id));
+            } else {
+                results.set(i, new OrderStatusBatchResponse.ItemResult(id, 200, OrderResponse.fromEntity(order), null));
+                updated++;
+            }
+        }
+        log.info("Batch status update done: {} updated, {} failed", updated, updates.size() - updated);
+        return new OrderStatusBatchResponse(updated, updates.size() - updated, results);
+    }
+
+    private static OrderStatusBatchResponse.ItemResult failure(Long id, int status, String error) {
+        return new OrderStatusBatchResponse.ItemResult(id, status, null, error);
+    }
 }
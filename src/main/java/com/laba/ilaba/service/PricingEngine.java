@@ -0,0 +1,124 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.QuoteCache;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.repository.CarRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Prices rentals on the server from {@link Car#getPricePerDay()} and the rule tables in
+ * {@code pricing-rules.txt} (or the file named by {@code ilaba.pricing.rules-file}). Amounts are
+ * converted to minor units once per quote and only turned back into {@link BigDecimal} for the response.
+ * Totals are memoized in {@link QuoteCache}.
+ */
+@ApplicationScoped
+@Slf4j
+public class PricingEngine {
+
+    private final int maxDays = Integer.getInteger("ilaba.pricing.max-days", 365);
+
+    private final PricingRules rules;
+
+    @Inject
+    private CarRepository carRepository;
+
+    @Inject
+    private QuoteCache quoteCache;
+
+    public PricingEngine() {
+        this(loadRules());
+    }
+
+    PricingEngine(PricingRules rules) {
+        this.rules = rules;
+    }
+
+    public Quote quote(Long carId, LocalDate from, LocalDate to) {
+        Car car = carRepository.findById(carId)
+                .orElseThrow(() -> new NotFoundException("Car not found with id: " + carId));
+        return quote(car, from, to);
+    }
+
+    public Quote quote(Car car, LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new BadRequestException("Both from and to dates are required");
+        }
+        if (to.isBefore(from)) {
+            throw new BadRequestException("End date cannot be before start date");
+        }
+        int days = PricingRules.days(from, to);
+        if (days > maxDays) {
+            throw new BadRequestException("Rentals are limited to " + maxDays + " days");
+        }
+        long pricePerDayMinor = toMinor(car.getPricePerDay());
+        long totalMinor = quoteCache.get(car.getId(), from, to, pricePerDayMinor);
+        if (totalMinor < 0) {
+            totalMinor = rules.total(pricePerDayMinor, from, to);
+            quoteCache.put(car.getId(), from, to, pricePerDayMinor, totalMinor);
+        }
+        return new Quote(car.getId(), from, to, days, pricePerDayMinor, totalMinor);
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    private static PricingRules loadRules() {
+        String file = System.getProperty("ilaba.pricing.rules-file");
+        try {
+            List<String> lines;
+            if (file != null) {
+                lines = Files.readAllLines(Path.of(file), StandardCharsets.UTF_8);
+            } else {
+                try (InputStream in = PricingEngine.class.getResourceAsStream("/pricing-rules.txt")) {
+                    if (in == null) {
+                        throw new IllegalStateException("pricing-rules.txt not found on the classpath");
+                    }
+                    lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))
+                            .lines()
+                            .collect(Collectors.toList());
+                }
+            }
+            log.info("Loaded pricing rules from {}", file != null ? file : "classpath:pricing-rules.txt");
+            return PricingRules.parse(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read pricing rules", e);
+        }
+    }
+
+    /**
+     * A priced rental; {@code days} as counted by the rules, amounts in minor units.
+     */
+    public record Quote(Long carId, LocalDate from, LocalDate to, int days, long pricePerDayMinor, long totalMinor) {
+
+        public BigDecimal pricePerDay() {
+            return fromMinor(pricePerDayMinor);
+        }
+
+        public BigDecimal total() {
+            return fromMinor(totalMinor);
+        }
+    }
+}
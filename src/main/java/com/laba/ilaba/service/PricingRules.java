@@ -0,0 +1,120 @@
+package com.laba.ilaba.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Seasonal and duration rule tables in the format of {@code pricing-rules.txt}, resolved at load time
+ * into flat arrays so that pricing a rental is integer arithmetic only. Adjustments are kept in basis
+ * points and amounts in minor units; every adjusted amount is rounded half up to a whole minor unit.
+ */
+final class PricingRules {
+
+    private static final int BPS = 10_000;
+
+    /** Seasonal adjustment per calendar day, indexed by {@code month * 32 + dayOfMonth}. */
+    private final int[] seasonalBps;
+    /** Duration tiers, ascending by minimum length. */
+    private final int[] durationMinDays;
+    private final int[] durationBps;
+
+    private PricingRules(int[] seasonalBps, int[] durationMinDays, int[] durationBps) {
+        this.seasonalBps = seasonalBps;
+        this.durationMinDays = durationMinDays;
+        this.durationBps = durationBps;
+    }
+
+    static PricingRules parse(List<String> lines) {
+        int[] seasonal = new int[13 * 32];
+        boolean[] assigned = new boolean[13 * 32];
+        List<int[]> tiers = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts[0].equals("season") && parts.length == 4) {
+                    MonthDay from = MonthDay.parse("--" + parts[1]);
+                    MonthDay to = MonthDay.parse("--" + parts[2]);
+                    int bps = toBps(parts[3]);
+                    // Walk a leap year so that 02-29 is covered; ranges may wrap into January.
+                    LocalDate day = from.atYear(2024);
+                    for (int walked = 0; walked <= 366; walked++) {
+                        int slot = slot(day);
+                        if (!assigned[slot]) {
+                            assigned[slot] = true;
+                            seasonal[slot] = bps;
+                        }
+                        if (MonthDay.from(day).equals(to)) {
+                            break;
+                        }
+                        day = day.plusDays(1);
+                    }
+                } else if (parts[0].equals("duration") && parts.length == 3) {
+                    tiers.add(new int[]{Integer.parseInt(parts[1]), toBps(parts[2])});
+                } else {
+                    throw new IllegalArgumentException("unknown rule");
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid pricing rule on line " + (i + 1) + ": " + line, e);
+            }
+        }
+        tiers.sort(Comparator.comparingInt(tier -> tier[0]));
+        int[] minDays = new int[tiers.size()];
+        int[] bps = new int[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            minDays[i] = tiers.get(i)[0];
+            bps[i] = tiers.get(i)[1];
+        }
+        return new PricingRules(seasonal, minDays, bps);
+    }
+
+    /**
+     * Rental days between {@code from} and {@code to}; a same-day rental counts as one day.
+     */
+    static int days(LocalDate from, LocalDate to) {
+        return (int) Math.max(1, to.toEpochDay() - from.toEpochDay());
+    }
+
+    /**
+     * Total in minor units: each rental day at the daily price with that day's seasonal adjustment, then
+     * the duration adjustment on the sum.
+     */
+    long total(long pricePerDayMinor, LocalDate from, LocalDate to) {
+        int days = days(from, to);
+        long subtotal = 0;
+        LocalDate day = from;
+        for (int i = 0; i < days; i++) {
+            subtotal += adjust(pricePerDayMinor, seasonalBps[slot(day)]);
+            day = day.plusDays(1);
+        }
+        return adjust(subtotal, durationBps(days));
+    }
+
+    private int durationBps(int days) {
+        int bps = 0;
+        for (int i = 0; i < durationMinDays.length && durationMinDays[i] <= days; i++) {
+            bps = durationBps[i];
+        }
+        return bps;
+    }
+
+    private static long adjust(long amount, int bps) {
+        return bps == 0 ? amount : Math.floorDiv(amount * (BPS + bps) + BPS / 2, BPS);
+    }
+
+    private static int slot(LocalDate day) {
+        return day.getMonthValue() * 32 + day.getDayOfMonth();
+    }
+
+    private static int toBps(String percent) {
+        String value = percent.endsWith("%") ? percent.substring(0, percent.length() - 1) : percent;
+        return new BigDecimal(value).movePointRight(2).intValueExact();
+    }
+}
@@ -16,7 +16,6 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 @Slf4j
@@ -40,9 +39,7 @@ public class UserService {
     
     public List<UserResponse> getAllUsers() {
         log.info("Getting all users");
-        return userRepository.findAll().stream()
-                .map(UserResponse::fromEntity)
-                .collect(Collectors.toList());
+        return userRepository.findAllResponses();
     }
     
     public UserResponse getUserById(Long id) {
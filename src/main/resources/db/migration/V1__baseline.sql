@@ -0,0 +1,39 @@
+-- Schema as previously generated from the entities. IF NOT EXISTS lets databases created that way
+-- adopt the migrations without changes.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGSERIAL PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cars (
+    id BIGSERIAL PRIMARY KEY,
+    make VARCHAR(255) NOT NULL,
+    model VARCHAR(255) NOT NULL,
+    year INTEGER NOT NULL,
+    priceperday NUMERIC(38, 2) NOT NULL,
+    isavailable BOOLEAN NOT NULL,
+    currentorderid VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT REFERENCES users (id),
+    car_id BIGINT REFERENCES cars (id),
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    total_price NUMERIC(38, 2) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    created_at DATE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS change_log (
+    seq BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(255) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    op VARCHAR(255) NOT NULL,
+    changed_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,14 @@
+-- Version columns for @Version on Car and User. Existing rows start at 1, as EclipseLink does for
+-- new ones.
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+
+-- Car ids are preallocated in blocks of 50 (allocationSize on Car), so the sequence must step by 50.
+CREATE SEQUENCE IF NOT EXISTS cars_id_seq;
+ALTER SEQUENCE cars_id_seq INCREMENT BY 50;
+
+-- EclipseLink takes each value returned by nextval as the last id of its block, so the next value has
+-- to be at least 50 past every id handed out so far.
+SELECT setval('cars_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM cars), (SELECT last_value FROM cars_id_seq)) + 50,
+              false);
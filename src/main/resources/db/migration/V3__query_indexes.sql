@@ -0,0 +1,17 @@
+-- One index per repository filter that is not already covered by a primary key or unique constraint.
+
+-- Order.findByUser (leading column) and Order.findByUserAndStatuses.
+CREATE INDEX IF NOT EXISTS orders_user_id_status_idx ON orders (user_id, status);
+
+-- Order.findByCar.
+CREATE INDEX IF NOT EXISTS orders_car_id_idx ON orders (car_id);
+
+-- Orders that are still open; the terminal statuses make up most of the table over time.
+CREATE INDEX IF NOT EXISTS orders_open_status_idx ON orders (status)
+    WHERE status IN ('PENDING', 'PAID', 'ACTIVE');
+
+-- Range filter of the order export.
+CREATE INDEX IF NOT EXISTS orders_created_at_idx ON orders (created_at);
+
+-- Car.findAvailable.
+CREATE INDEX IF NOT EXISTS cars_available_idx ON cars (id) WHERE isavailable;
@@ -0,0 +1,69 @@
+-- Orders become range-partitioned by created_at, one partition per month, so old months can be
+-- vacuumed, archived and eventually dropped independently of the hot ones. PostgreSQL requires the
+-- partition key in the primary key; ids still come from orders_id_seq and stay unique.
+
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+ALTER SEQUENCE orders_id_seq OWNED BY NONE;
+DROP INDEX IF EXISTS orders_user_id_status_idx;
+DROP INDEX IF EXISTS orders_car_id_idx;
+DROP INDEX IF EXISTS orders_open_status_idx;
+DROP INDEX IF EXISTS orders_created_at_idx;
+
+CREATE TABLE orders (
+    id BIGINT NOT NULL DEFAULT nextval('orders_id_seq'),
+    user_id BIGINT REFERENCES users (id),
+    car_id BIGINT REFERENCES cars (id),
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    total_price NUMERIC(38, 2) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    created_at DATE NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Safety net for rows outside every monthly partition; OrderArchiveJob creates months ahead of time and
+-- moves anything that landed here into its proper partition.
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+-- Monthly partitions from the oldest existing order up to three months ahead.
+DO $$
+DECLARE
+    partition_start DATE := date_trunc('month', LEAST((SELECT MIN(created_at) FROM orders_unpartitioned), current_date));
+BEGIN
+    WHILE partition_start < date_trunc('month', current_date) + INTERVAL '4 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       'orders_' || to_char(partition_start, 'YYYY_MM'), partition_start, (partition_start + INTERVAL '1 month')::date);
+        partition_start := (partition_start + INTERVAL '1 month')::date;
+    END LOOP;
+END
+$$;
+
+INSERT INTO orders (id, user_id, car_id, start_date, end_date, total_price, status, created_at)
+SELECT id, user_id, car_id, start_date, end_date, total_price, status, created_at
+FROM orders_unpartitioned;
+
+DROP TABLE orders_unpartitioned;
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+-- Same indexes as V3, now created on every partition.
+CREATE INDEX orders_user_id_status_idx ON orders (user_id, status);
+CREATE INDEX orders_car_id_idx ON orders (car_id);
+CREATE INDEX orders_open_status_idx ON orders (status) WHERE status IN ('PENDING', 'PAID', 'ACTIVE');
+CREATE INDEX orders_created_at_idx ON orders (created_at);
+
+-- Closed orders past the archive age, moved here by OrderArchiveJob. No foreign keys, so archived
+-- history never blocks deleting a car or user.
+CREATE TABLE orders_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT,
+    car_id BIGINT,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    total_price NUMERIC(38, 2) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    created_at DATE NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX orders_archive_user_id_idx ON orders_archive (user_id);
+CREATE INDEX orders_archive_created_at_idx ON orders_archive (created_at);
@@ -0,0 +1,14 @@
+-- Replies to POST /orders keyed by the client's Idempotency-Key, shared by all nodes.
+-- A row without status_code is a claim held by the node currently running the request; it expires
+-- after a short lease so a crashed node does not block the key until the reply TTL runs out.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scope_key VARCHAR(64) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- IdempotencyRecord.purgeExpired.
+CREATE INDEX IF NOT EXISTS idempotency_keys_expires_at_idx ON idempotency_keys (expires_at);
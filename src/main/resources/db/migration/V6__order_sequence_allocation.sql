@@ -0,0 +1,9 @@
+-- Order ids are preallocated in blocks of 50 (allocationSize on Order), so inserts can be batched and
+-- the async intake can hand out an id before the row is written. Same scheme as cars_id_seq in V2.
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+
+SELECT setval('orders_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM orders),
+                       (SELECT COALESCE(MAX(id), 0) FROM orders_archive),
+                       (SELECT last_value FROM orders_id_seq)) + 50,
+              false);
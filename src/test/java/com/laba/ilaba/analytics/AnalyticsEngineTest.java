@@ -0,0 +1,93 @@
+package com.laba.ilaba.analytics;
+
+import com.laba.ilaba.dto.AnalyticsQueryRequest;
+import com.laba.ilaba.dto.AnalyticsQueryResponse;
+import com.laba.ilaba.entity.Order;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AnalyticsEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private final AnalyticsEngine engine = new AnalyticsEngine(2);
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void query_shouldAverageRentalLengthByMake_acrossParallelLeaves() {
+        // Arrange
+        OrderColumns.Builder builder = OrderColumns.builder()
+                .addCar(1L, "Audi", 2020, 10_000)
+                .addCar(2L, "BMW", 2021, 20_000);
+        int rows = AnalyticsEngine.LEAF_ROWS * 3;
+        for (int i = 0; i < rows; i++) {
+            boolean audi = i % 2 == 0;
+            builder.addOrder(audi ? 1L : 2L, START, START.plusDays(audi ? 2 : 4), 50_000, Order.Status.COMPLETED);
+        }
+        AnalyticsQueryRequest request = new AnalyticsQueryRequest(
+                List.of(new AnalyticsQueryRequest.Filter("status", "eq", "completed", null)), "make", null);
+
+        // Act
+        AnalyticsQueryResponse response = engine.query(builder.build(), request);
+
+        // Assert
+        assertEquals(rows, response.getMatched());
+        assertEquals(2, response.getGroups().size());
+        AnalyticsQueryResponse.Group audi = response.getGroups().get(0);
+        assertEquals("Audi", audi.getKey());
+        assertEquals(rows / 2, audi.getOrders());
+        assertEquals(2.0, audi.getAvgDays());
+        assertEquals(new BigDecimal("500.00"), audi.getAvgPrice());
+        assertEquals(4.0, response.getGroups().get(1).getAvgDays());
+    }
+
+    @Test
+    void query_shouldComputeRejectionRateByPriceBand_withinFilteredDates() {
+        // Arrange
+        OrderColumns columns = OrderColumns.builder()
+                .addCar(1L, "Audi", 2020, 10_000)
+                .addOrder(1L, START, START.plusDays(1), 5_000, Order.Status.PAID)
+                .addOrder(null, START, START.plusDays(1), 9_000, Order.Status.REJECTED)
+                .addOrder(1L, START, START.plusDays(1), 15_000, Order.Status.COMPLETED)
+                .addOrder(1L, START.minusDays(1), START.plusDays(1), 5_000, Order.Status.PAID)
+                .build();
+        AnalyticsQueryRequest request = new AnalyticsQueryRequest(
+                List.of(new AnalyticsQueryRequest.Filter("startDate", "gte", START.toString(), null)),
+                "priceBand", BigDecimal.valueOf(100));
+
+        // Act
+        AnalyticsQueryResponse response = engine.query(columns, request);
+
+        // Assert
+        assertEquals(3, response.getMatched());
+        AnalyticsQueryResponse.Group cheap = response.getGroups().get(0);
+        assertEquals("0.00-100.00", cheap.getKey());
+        assertEquals(2, cheap.getOrders());
+        assertEquals(0.5, cheap.getRejectionRate());
+        assertEquals(new BigDecimal("50.00"), cheap.getRevenue());
+        assertEquals("100.00-200.00", response.getGroups().get(1).getKey());
+    }
+
+    @Test
+    void query_shouldRejectUnknownFields() {
+        // Arrange
+        OrderColumns columns = OrderColumns.builder().build();
+        AnalyticsQueryRequest request = new AnalyticsQueryRequest(
+                List.of(new AnalyticsQueryRequest.Filter("colour", "eq", "red", null)), null, null);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> engine.query(columns, request));
+    }
+}
@@ -0,0 +1,118 @@
+package com.laba.ilaba.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.CarSuggestion;
+import com.laba.ilaba.entity.Car;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CarCatalogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private SuggestIndex suggestIndex = new SuggestIndex();
+
+    @InjectMocks
+    private CarCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void render_shouldMatchCarResponseJson() throws Exception {
+        // Arrange
+        Car car = car(7L, "\u0160koda", "Octavia \"RS\"", true);
+        catalog.put(car);
+
+        // Act
+        JsonNode rendered = objectMapper.readTree(catalog.render(7L));
+
+        // Assert
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(CarResponse.fromEntity(car))), rendered);
+    }
+
+    @Test
+    void renderAll_shouldKeepIdOrder_acrossInsertsUpdatesAndRemovals() throws Exception {
+        // Arrange
+        catalog.putAll(List.of(car(30L, "Audi", "A4", true), car(10L, "BMW", "X5", false)));
+        catalog.put(car(20L, "Audi", "A6", true));
+        catalog.put(car(10L, "BMW", "X5", true));
+        catalog.remove(30L);
+
+        // Act
+        JsonNode all = objectMapper.readTree(catalog.renderAll(false));
+        JsonNode available = objectMapper.readTree(catalog.renderAll(true));
+
+        // Assert
+        assertEquals(2, all.size());
+        assertEquals(10L, all.get(0).get("id").asLong());
+        assertEquals(true, all.get(0).get("isAvailable").asBoolean());
+        assertEquals("A6", all.get(1).get("model").asText());
+        assertEquals(2, available.size());
+        assertNull(catalog.render(30L));
+    }
+
+    @Test
+    void put_shouldKeepCurrentOrdersOutOfTheDictionary() throws Exception {
+        // Arrange
+        Car car = car(7L, "Audi", "A4", false);
+        Car other = car(8L, "Audi", "A4", false);
+        other.setCurrentOrderId("ext-7");
+        catalog.put(other);
+
+        // Act
+        for (int orderId = 1; orderId <= 100; orderId++) {
+            car.setCurrentOrderId(String.valueOf(orderId));
+            catalog.put(car);
+        }
+
+        // Assert
+        assertEquals(2, catalog.statistics().get("dictionaryEntries"));
+        assertEquals("100", objectMapper.readTree(catalog.render(7L)).get("currentOrderId").asText());
+        assertEquals("ext-7", objectMapper.readTree(catalog.render(8L)).get("currentOrderId").asText());
+    }
+
+    @Test
+    void putAndRemove_shouldKeepSuggestionCountsCurrent() {
+        // Arrange
+        catalog.putAll(List.of(car(1L, "Audi", "A4", true), car(2L, "Audi", "A6", true), car(3L, "BMW", "X5", true)));
+
+        // Act
+        catalog.put(car(2L, "Audi", "A6", false));
+        catalog.put(car(3L, "Audi", "A4", true));
+        catalog.remove(1L);
+
+        // Assert
+        List<CarSuggestion> suggestions = suggestIndex.suggest("", 10);
+        assertEquals(List.of(
+                new CarSuggestion("Audi", "Audi", null, 2, 1),
+                new CarSuggestion("Audi A4", "Audi", "A4", 1, 1),
+                new CarSuggestion("Audi A6", "Audi", "A6", 1, 0)), suggestions);
+    }
+
+    private static Car car(Long id, String make, String model, boolean available) {
+        return Car.builder()
+                .id(id)
+                .version(1L)
+                .make(make)
+                .model(model)
+                .year(2021)
+                .pricePerDay(new BigDecimal("49.90"))
+                .isAvailable(available)
+                .build();
+    }
+}
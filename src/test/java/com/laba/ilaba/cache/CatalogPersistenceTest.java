@@ -0,0 +1,111 @@
+package com.laba.ilaba.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeSnapshot_shouldRoundTripThroughTheMappedFile() throws IOException {
+        // Arrange
+        BitSet available = new BitSet();
+        available.set(1);
+        CatalogPersistence.Snapshot snapshot = new CatalogPersistence.Snapshot(42L, 2,
+                new long[]{10L, 20L, 0L}, new int[]{2019, 2022, 0}, new long[]{4_990L, 12_000L, 0L},
+                new int[]{0, 1, 0}, new int[]{2, 3, 0}, new long[]{CarCatalog.NO_ORDER, 1_234_567_890_123L, 0L},
+                Map.of(10L, "ext-7"), available, List.of("Audi", "\u0160koda", "A4", "Octavia"));
+
+        // Act
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            persistence.writeSnapshot(snapshot);
+        }
+        CatalogPersistence.Snapshot read;
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            read = persistence.readSnapshot();
+        }
+
+        // Assert
+        assertEquals(42L, read.syncedSeq());
+        assertArrayEquals(new long[]{10L, 20L}, read.ids());
+        assertArrayEquals(new long[]{4_990L, 12_000L}, read.priceMinor());
+        assertArrayEquals(new int[]{2, 3}, read.models());
+        assertArrayEquals(new long[]{CarCatalog.NO_ORDER, 1_234_567_890_123L}, read.currentOrders());
+        assertEquals(Map.of(10L, "ext-7"), read.otherCurrentOrders());
+        assertEquals(available, read.available());
+        assertEquals("\u0160koda", read.dictionary().get(1));
+    }
+
+    @Test
+    void readSnapshot_shouldRejectACorruptFile() throws IOException {
+        // Arrange
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            persistence.writeSnapshot(new CatalogPersistence.Snapshot(1L, 0, new long[0], new int[0], new long[0],
+                    new int[0], new int[0], new long[0], Map.of(), new BitSet(), List.of("Audi")));
+        }
+        Path file = directory.resolve("car-catalog.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 1;
+        Files.write(file, bytes);
+
+        // Act & Assert
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            assertNull(persistence.readSnapshot());
+        }
+    }
+
+    @Test
+    void replay_shouldApplyIntactRecords_andDropATornTail() throws IOException {
+        // Arrange
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            persistence.appendPut(10L, 2020, 5_000L, true, "Audi", "A4", null);
+            persistence.appendRemove(20L);
+            persistence.flush();
+        }
+        Files.write(directory.resolve("car-catalog.wal"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        List<String> applied = new ArrayList<>();
+        CatalogPersistence.Visitor visitor = new CatalogPersistence.Visitor() {
+            @Override
+            public void put(long id, int year, long priceMinor, boolean available, String make, String model,
+                            String currentOrder) {
+                applied.add("put " + id + " " + make + " " + model + " " + available + " " + currentOrder);
+            }
+
+            @Override
+            public void remove(long id) {
+                applied.add("remove " + id);
+            }
+        };
+
+        // Act
+        int replayed;
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            replayed = persistence.replay(visitor);
+            persistence.appendRemove(30L);
+            persistence.flush();
+        }
+        applied.clear();
+        try (CatalogPersistence persistence = new CatalogPersistence(directory)) {
+            persistence.replay(visitor);
+        }
+
+        // Assert
+        assertEquals(2, replayed);
+        assertEquals(List.of("put 10 Audi A4 true null", "remove 20", "remove 30"), applied);
+    }
+}
@@ -0,0 +1,137 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.EntityKind;
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.Invalidation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the channel against a real PostgreSQL in a container; skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PgNotifyInvalidationChannelIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final List<PgNotifyInvalidationChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        channels.forEach(PgNotifyInvalidationChannel::close);
+    }
+
+    @Test
+    void publish_shouldReachOtherNodes_butNotItself() throws Exception {
+        // Arrange
+        RecordingHandler a = new RecordingHandler();
+        RecordingHandler b = new RecordingHandler();
+        PgNotifyInvalidationChannel nodeA = start("node-a", a);
+        start("node-b", b);
+        assertTrue(a.awaitResync());
+        assertTrue(b.awaitResync());
+
+        // Act
+        nodeA.publish(EntityKind.CAR, 12, 4L);
+        nodeA.publish(EntityKind.USER, 7, null);
+
+        // Assert
+        assertEquals(Set.of(new Invalidation(EntityKind.CAR, 12, 4L), new Invalidation(EntityKind.USER, 7, null)),
+                Set.of(b.invalidations.poll(5, TimeUnit.SECONDS), b.invalidations.poll(5, TimeUnit.SECONDS)));
+        assertNull(b.invalidations.poll(300, TimeUnit.MILLISECONDS));
+        assertNull(a.invalidations.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void listener_shouldDeliverNotifySentOnAnotherConnection() throws Exception {
+        // Arrange
+        RecordingHandler handler = new RecordingHandler();
+        start("node-a", handler);
+        assertTrue(handler.awaitResync());
+
+        // Act
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, PgNotifyInvalidationChannel.CHANNEL);
+            statement.setString(2, "node-z|C5:9,C6:");
+            statement.execute();
+        }
+
+        // Assert
+        assertEquals(new Invalidation(EntityKind.CAR, 5, 9L), handler.invalidations.poll(5, TimeUnit.SECONDS));
+        assertEquals(new Invalidation(EntityKind.CAR, 6, null), handler.invalidations.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void listener_shouldReconnectAndResync_afterItsConnectionIsKilled() throws Exception {
+        // Arrange
+        RecordingHandler a = new RecordingHandler();
+        RecordingHandler b = new RecordingHandler();
+        PgNotifyInvalidationChannel nodeA = start("node-a", a);
+        start("node-b", b);
+        assertTrue(a.awaitResync());
+        assertTrue(b.awaitResync());
+
+        // Act
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                    + "WHERE query LIKE 'LISTEN %' AND pid <> pg_backend_pid()");
+        }
+
+        // Assert
+        assertTrue(b.awaitResync(), "node-b did not resync after reconnecting");
+        nodeA.publish(EntityKind.CAR, 42, 1L);
+        assertEquals(new Invalidation(EntityKind.CAR, 42, 1L), b.invalidations.poll(5, TimeUnit.SECONDS));
+    }
+
+    private PgNotifyInvalidationChannel start(String nodeId, RecordingHandler handler) {
+        PgNotifyInvalidationChannel channel = new PgNotifyInvalidationChannel(POSTGRES.getJdbcUrl(),
+                POSTGRES.getUsername(), POSTGRES.getPassword(), nodeId, 50, handler);
+        channels.add(channel);
+        channel.start();
+        return channel;
+    }
+
+    private static Connection connect() throws Exception {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    private static final class RecordingHandler implements PgNotifyInvalidationChannel.Handler {
+
+        final BlockingQueue<Invalidation> invalidations = new LinkedBlockingQueue<>();
+        final Semaphore resyncs = new Semaphore(0);
+
+        @Override
+        public void onInvalidations(List<Invalidation> received) {
+            invalidations.addAll(received);
+        }
+
+        @Override
+        public void onResync() {
+            resyncs.release();
+        }
+
+        boolean awaitResync() throws InterruptedException {
+            return resyncs.tryAcquire(10, TimeUnit.SECONDS);
+        }
+    }
+}
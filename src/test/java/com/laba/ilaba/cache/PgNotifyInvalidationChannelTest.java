@@ -0,0 +1,53 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.EntityKind;
+import com.laba.ilaba.cache.PgNotifyInvalidationChannel.Invalidation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PgNotifyInvalidationChannelTest {
+
+    private final PgNotifyInvalidationChannel channel = new PgNotifyInvalidationChannel(
+            "jdbc:postgresql://localhost/none", "none", "none", "node-a", 50, null);
+
+    @Test
+    void parsePayload_shouldReadEntriesFromOtherNodes() {
+        // Arrange
+        List<Invalidation> invalidations = new ArrayList<>();
+
+        // Act
+        channel.parsePayload("node-b|C12:4,U7:,X1:1,Cabc:2", invalidations);
+
+        // Assert
+        assertEquals(List.of(
+                new Invalidation(EntityKind.CAR, 12, 4L),
+                new Invalidation(EntityKind.USER, 7, null)), invalidations);
+    }
+
+    @Test
+    void parsePayload_shouldIgnoreOwnNotifications() {
+        // Arrange
+        List<Invalidation> invalidations = new ArrayList<>();
+
+        // Act
+        channel.parsePayload("node-a|C12:4", invalidations);
+
+        // Assert
+        assertTrue(invalidations.isEmpty());
+    }
+
+    @Test
+    void newer_shouldPreferUnknownVersion() {
+        Invalidation versioned = new Invalidation(EntityKind.CAR, 1, 3L);
+        Invalidation later = new Invalidation(EntityKind.CAR, 1, 5L);
+        Invalidation unknown = new Invalidation(EntityKind.CAR, 1, null);
+
+        assertEquals(later, Invalidation.newer(versioned, later));
+        assertEquals(unknown, Invalidation.newer(later, unknown));
+    }
+}
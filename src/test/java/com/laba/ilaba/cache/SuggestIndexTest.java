@@ -0,0 +1,79 @@
+package com.laba.ilaba.cache;
+
+import com.laba.ilaba.dto.CarSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestIndexTest {
+
+    private static final String[] MAKES = {"Toyota", "Toyota", "Toyota", "Tesla", "Tesla", "Audi", "Skoda"};
+    private static final String[] MODELS = {"Corolla", "Corolla", "Camry", "Model 3", "Model Y", "TT", "Octavia"};
+    private static final boolean[] AVAILABLE = {true, false, true, true, true, false, true};
+
+    private final SuggestIndex index = new SuggestIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(MAKES.length, i -> MAKES[i], i -> MODELS[i], i -> AVAILABLE[i]);
+    }
+
+    @Test
+    void suggest_shouldMatchMakesAndModelsByPrefix_ignoringCase() {
+        // Act
+        List<String> suggestions = texts(index.suggest("T", 10));
+
+        // Assert
+        assertEquals(List.of("Toyota", "Tesla", "Toyota Corolla", "Tesla Model 3", "Tesla Model Y",
+                "Toyota Camry", "Audi TT"), suggestions);
+    }
+
+    @Test
+    void suggest_shouldRankByAvailabilityThenFleetCount() {
+        // Act
+        List<CarSuggestion> suggestions = index.suggest("toyota c", 10);
+
+        // Assert
+        assertEquals(List.of(
+                new CarSuggestion("Toyota Corolla", "Toyota", "Corolla", 2, 1),
+                new CarSuggestion("Toyota Camry", "Toyota", "Camry", 1, 1)), suggestions);
+    }
+
+    @Test
+    void suggest_shouldListAPairOnce_whenModelAndMakeModelKeysBothMatch() {
+        // Arrange
+        index.carChanged(null, null, false, "Mini", "Mini Cooper", true);
+
+        // Act
+        List<String> suggestions = texts(index.suggest("mini", 10));
+
+        // Assert
+        assertEquals(List.of("Mini", "Mini Mini Cooper"), suggestions);
+    }
+
+    @Test
+    void suggest_shouldHonourTheLimit_andSkipEmptiedEntries() {
+        // Arrange
+        index.carRemoved("Audi", "TT", false);
+        index.carChanged("Skoda", "Octavia", true, "\u0160koda", "Octavia", true);
+
+        // Act
+        List<String> limited = texts(index.suggest("", 2));
+        List<String> audi = texts(index.suggest("a", 10));
+        List<String> octavia = texts(index.suggest("oct", 10));
+
+        // Assert
+        assertEquals(List.of("Toyota", "Tesla"), limited);
+        assertTrue(audi.isEmpty());
+        assertEquals(List.of("\u0160koda Octavia"), octavia);
+    }
+
+    private static List<String> texts(List<CarSuggestion> suggestions) {
+        return suggestions.stream().map(CarSuggestion::getText).collect(Collectors.toList());
+    }
+}
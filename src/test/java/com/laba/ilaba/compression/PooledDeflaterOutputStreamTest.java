@@ -0,0 +1,87 @@
+package com.laba.ilaba.compression;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDeflaterOutputStreamTest {
+
+    private DeflaterPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new DeflaterPool(6, 4);
+    }
+
+    @Test
+    void compress_shouldProduceValidGzip_andReturnDeflaterToPool() throws Exception {
+        // Arrange
+        byte[] body = "{\"make\":\"Toyota\",\"model\":\"Camry\"},".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        byte[] compressed = PooledDeflaterOutputStream.compress(body, ContentCoding.GZIP, pool);
+
+        // Assert
+        assertTrue(compressed.length < body.length);
+        assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        assertEquals(1, pool.idleCount(ContentCoding.GZIP));
+    }
+
+    @Test
+    void compress_shouldProduceValidZlib_whenDeflateIsNegotiated() throws Exception {
+        // Arrange
+        byte[] body = "[1,2,3,4,5,6,7,8,9]".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        byte[] first = PooledDeflaterOutputStream.compress(body, ContentCoding.DEFLATE, pool);
+        byte[] second = PooledDeflaterOutputStream.compress(body, ContentCoding.DEFLATE, pool);
+
+        // Assert
+        assertArrayEquals(body, readAll(new InflaterInputStream(new ByteArrayInputStream(first))));
+        assertArrayEquals(first, second);
+        assertEquals(1, pool.idleCount(ContentCoding.DEFLATE));
+    }
+
+    @Test
+    void abort_shouldEndTheDeflaterInsteadOfPoolingIt_unlessFinished() throws Exception {
+        // Arrange
+        byte[] body = "[1,2,3]".repeat(100).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PooledDeflaterOutputStream failed = new PooledDeflaterOutputStream(out, ContentCoding.GZIP, pool);
+        PooledDeflaterOutputStream finished = new PooledDeflaterOutputStream(out, ContentCoding.DEFLATE, pool);
+        failed.write(body);
+        finished.write(body);
+        finished.finish();
+
+        // Act
+        failed.abort();
+        finished.abort();
+
+        // Assert
+        assertEquals(0, pool.idleCount(ContentCoding.GZIP));
+        assertEquals(1, pool.idleCount(ContentCoding.DEFLATE));
+    }
+
+    @Test
+    void negotiate_shouldRespectQualityValues() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip, deflate, br"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0, deflate"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*"));
+        assertNull(ContentCoding.negotiate("identity"));
+        assertNull(ContentCoding.negotiate(null));
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
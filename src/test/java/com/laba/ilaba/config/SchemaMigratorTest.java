@@ -0,0 +1,109 @@
+package com.laba.ilaba.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SchemaMigratorTest {
+
+    /**
+     * Set to a scratch PostgreSQL database (with ILABA_TEST_DB_USER / ILABA_TEST_DB_PASSWORD) to run
+     * the tests that apply the migrations.
+     */
+    private static final String DB_URL = System.getenv("ILABA_TEST_DB_URL");
+
+    @Test
+    void loadMigrations_shouldReadListedFilesInVersionOrder() {
+        // Act
+        List<SchemaMigrator.Migration> migrations = SchemaMigrator.loadMigrations();
+
+        // Assert
+        assertFalse(migrations.isEmpty());
+        for (int i = 0; i < migrations.size(); i++) {
+            assertEquals(i + 1, migrations.get(i).version());
+            assertEquals(64, migrations.get(i).checksum().length());
+        }
+    }
+
+    @Test
+    void splitStatements_shouldSplitOnLineEndingSemicolonsAndSkipComments() {
+        // Arrange
+        String sql = "-- comment; with semicolon\n"
+                + "CREATE TABLE t (\n    note VARCHAR(10) DEFAULT 'a;b'\n);\n\n"
+                + "CREATE INDEX i ON t (note)\n    WHERE note <> '';\n";
+
+        // Act
+        List<String> statements = SchemaMigrator.splitStatements(sql);
+
+        // Assert
+        assertEquals(List.of(
+                "CREATE TABLE t (\n    note VARCHAR(10) DEFAULT 'a;b'\n)",
+                "CREATE INDEX i ON t (note)\n    WHERE note <> ''"), statements);
+    }
+
+    @Test
+    void splitStatements_shouldKeepDollarQuotedBlocksTogether() {
+        // Arrange
+        String sql = "DO $$\nBEGIN\n    PERFORM 1;\nEND\n$$;\nSELECT 2;\n";
+
+        // Act
+        List<String> statements = SchemaMigrator.splitStatements(sql);
+
+        // Assert
+        assertEquals(List.of("DO $$\nBEGIN\n    PERFORM 1;\nEND\n$$", "SELECT 2"), statements);
+    }
+
+    @Test
+    void repositoryQueries_shouldUseTheirIndexes() throws SQLException {
+        assumeTrue(DB_URL != null, "ILABA_TEST_DB_URL not set");
+        String user = System.getenv().getOrDefault("ILABA_TEST_DB_USER", "postgres");
+        String password = System.getenv().getOrDefault("ILABA_TEST_DB_PASSWORD", "postgres");
+
+        // Arrange
+        SchemaMigrator migrator = new SchemaMigrator(DB_URL, user, password);
+        migrator.migrate();
+        migrator.migrate();
+
+        try (Connection connection = DriverManager.getConnection(DB_URL, user, password);
+             Statement statement = connection.createStatement()) {
+            // Small test tables would otherwise always be scanned sequentially.
+            statement.execute("SET enable_seqscan = off");
+
+            // Act + Assert
+            assertTrue(plan(statement, "SELECT * FROM orders WHERE user_id = 1")
+                    .contains("user_id_status_idx"));
+            assertTrue(plan(statement, "SELECT * FROM orders WHERE user_id = 1 AND status IN ('PENDING', 'PAID', 'ACTIVE')")
+                    .contains("user_id_status_idx"));
+            assertTrue(plan(statement, "SELECT * FROM orders WHERE car_id = 1")
+                    .contains("car_id_idx"));
+            assertTrue(plan(statement, "SELECT * FROM cars WHERE isavailable = true")
+                    .contains("cars_available_idx"));
+            assertTrue(plan(statement, "SELECT * FROM orders_archive WHERE user_id = 1")
+                    .contains("orders_archive_user_id_idx"));
+            String monthPlan = plan(statement, "SELECT * FROM orders "
+                    + "WHERE created_at >= date_trunc('month', current_date)::date "
+                    + "AND created_at < (date_trunc('month', current_date) + INTERVAL '1 month')::date");
+            assertFalse(monthPlan.contains("orders_default"), "other partitions should be pruned: " + monthPlan);
+        }
+    }
+
+    private static String plan(Statement statement, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
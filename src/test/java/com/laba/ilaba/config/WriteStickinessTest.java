@@ -0,0 +1,50 @@
+package com.laba.ilaba.config;
+
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.NewCookie;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteStickinessTest {
+
+    private final WriteStickiness writeStickiness = new WriteStickiness();
+
+    @Test
+    void recordWrite_shouldMakeOnlyThatUserSticky() {
+        // Act
+        writeStickiness.recordWrite("writer@example.com");
+
+        // Assert
+        assertTrue(writeStickiness.isSticky("writer@example.com", null));
+        assertFalse(writeStickiness.isSticky("reader@example.com", null));
+    }
+
+    @Test
+    void isSticky_shouldHonourTheCookieOfAWriteOnAnotherNode() {
+        // Arrange
+        NewCookie cookie = new WriteStickiness().recordWrite("writer@example.com");
+
+        // Act
+        boolean sticky = writeStickiness.isSticky("writer@example.com", cookie.toCookie());
+
+        // Assert
+        assertEquals(WriteStickiness.COOKIE, cookie.getName());
+        assertTrue(sticky);
+    }
+
+    @Test
+    void isSticky_shouldIgnoreExpiredOrMalformedCookies() {
+        // Arrange
+        Cookie expired = new Cookie.Builder(WriteStickiness.COOKIE)
+                .value(Long.toString(System.currentTimeMillis() - 1))
+                .build();
+        Cookie malformed = new Cookie.Builder(WriteStickiness.COOKIE).value("soon").build();
+
+        // Act & Assert
+        assertFalse(writeStickiness.isSticky("writer@example.com", expired));
+        assertFalse(writeStickiness.isSticky("writer@example.com", malformed));
+    }
+}
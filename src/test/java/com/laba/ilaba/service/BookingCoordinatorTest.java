@@ -0,0 +1,91 @@
+package com.laba.ilaba.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingCoordinatorTest {
+
+    private final BookingCoordinator bookingCoordinator = new BookingCoordinator(50);
+
+    @Test
+    void book_shouldRejectSameCarWithConflict_whileBookingRunsPastTheWait() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<String> winner = CompletableFuture.supplyAsync(() -> bookingCoordinator.book(1L, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "order";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        ClientErrorException conflict = assertThrows(ClientErrorException.class,
+                () -> bookingCoordinator.book(1L, runs::incrementAndGet));
+        assertEquals(409, conflict.getResponse().getStatus());
+        assertEquals(2, (int) bookingCoordinator.book(2L, runs::incrementAndGet));
+
+        release.countDown();
+        assertEquals("order", winner.get(5, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+        assertEquals(1L, bookingCoordinator.snapshot().get("rejected"));
+    }
+
+    @Test
+    void book_shouldFreeCarAfterFailedBooking() {
+        // Arrange
+        assertThrows(IllegalStateException.class, () -> bookingCoordinator.book(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        // Act
+        String result = bookingCoordinator.book(1L, () -> "order");
+
+        // Assert
+        assertEquals("order", result);
+        assertEquals(0, bookingCoordinator.snapshot().get("inProgress"));
+    }
+
+    @Test
+    void book_shouldRunAWaitingBooking_onceTheHolderReleases() throws Exception {
+        // Arrange
+        BookingCoordinator patient = new BookingCoordinator(5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> patient.book(1L, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("validation failed late");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> patient.book(1L, () -> "order"));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Assert
+        assertEquals("order", waiter.get(5, TimeUnit.SECONDS));
+        assertTrue(holder.isCompletedExceptionally());
+        assertEquals(0L, patient.snapshot().get("rejected"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.CarCatalog;
+import com.laba.ilaba.config.ReadRouting;
+import com.laba.ilaba.dto.BootstrapResponse;
+import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.OrderResponse;
+import com.laba.ilaba.entity.User;
+import com.laba.ilaba.repository.UserRepository;
+import jakarta.enterprise.context.control.RequestContextController;
+import jakarta.enterprise.inject.Instance;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BootstrapServiceTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CarService carService;
+
+    @Mock
+    private CarCatalog carCatalog;
+
+    @Mock
+    private ReadRouting readRouting;
+
+    @Mock
+    private Instance<RequestContextController> requestContextControllers;
+
+    @Mock
+    private RequestContextController requestContextController;
+
+    @InjectMocks
+    private BootstrapService bootstrapService = new BootstrapService(200, 2);
+
+    private final User user = User.builder().id(1L).email(EMAIL).username("test").role(User.Role.USER).build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(requestContextControllers.get()).thenReturn(requestContextController);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bootstrapService.shutdown();
+    }
+
+    @Test
+    void bootstrap_shouldCombineUserOrderAndCars_eachBranchInItsOwnRequestContext() {
+        // Arrange
+        OrderResponse order = OrderResponse.builder().id(5L).status("active").build();
+        List<CarResponse> cars = List.of(CarResponse.builder().id(7L).make("Audi").build());
+        when(orderService.findCurrentOrder(user)).thenReturn(Optional.of(order));
+        when(carService.getAvailableCars()).thenReturn(cars);
+
+        // Act
+        BootstrapResponse response = bootstrapService.bootstrap(EMAIL);
+
+        // Assert
+        assertEquals(EMAIL, response.getUser().getEmail());
+        assertEquals(order, response.getCurrentOrder());
+        assertEquals(cars, response.getAvailableCars());
+        assertTrue(response.getUnavailable().isEmpty());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verify(requestContextController, times(2)).activate();
+        verify(requestContextController, times(2)).deactivate();
+    }
+
+    @Test
+    void bootstrap_shouldLeaveAFailedBranchOut_andServeTheRest() {
+        // Arrange
+        when(orderService.findCurrentOrder(user)).thenThrow(new IllegalStateException("database down"));
+        when(carService.getAvailableCars()).thenReturn(List.of());
+
+        // Act
+        BootstrapResponse response = bootstrapService.bootstrap(EMAIL);
+
+        // Assert
+        assertNull(response.getCurrentOrder());
+        assertEquals(List.of(), response.getAvailableCars());
+        assertEquals(List.of(BootstrapService.CURRENT_ORDER), response.getUnavailable());
+    }
+
+    @Test
+    void bootstrap_shouldGiveUpOnASlowBranch_afterItsTimeout() {
+        // Arrange
+        when(orderService.findCurrentOrder(user)).thenReturn(Optional.empty());
+        when(carService.getAvailableCars()).thenAnswer(invocation -> {
+            Thread.sleep(2_000);
+            return List.of();
+        });
+
+        // Act
+        long start = System.nanoTime();
+        BootstrapResponse response = bootstrapService.bootstrap(EMAIL);
+        long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertNull(response.getCurrentOrder());
+        assertNull(response.getAvailableCars());
+        assertEquals(List.of(BootstrapService.AVAILABLE_CARS), response.getUnavailable());
+        assertTrue(tookMillis < 1_500, "took " + tookMillis + " ms");
+    }
+
+    @Test
+    void bootstrap_shouldRouteEachBranchToThePrimary_whenTheRequestIs() {
+        // Arrange
+        when(readRouting.isPrimary()).thenReturn(true);
+        when(orderService.findCurrentOrder(user)).thenReturn(Optional.empty());
+        when(carService.getAvailableCars()).thenReturn(List.of());
+        when(carCatalog.isReady()).thenReturn(true);
+
+        // Act
+        BootstrapResponse response = bootstrapService.bootstrap(EMAIL);
+
+        // Assert
+        assertEquals(List.of(), response.getAvailableCars());
+        assertTrue(response.getUnavailable().isEmpty());
+        verify(readRouting, times(2)).usePrimary();
+        InOrder order = inOrder(requestContextController, readRouting, orderService);
+        order.verify(requestContextController).activate();
+        order.verify(readRouting).usePrimary();
+        order.verify(orderService).findCurrentOrder(user);
+        verify(carCatalog, never()).renderAll(true);
+    }
+
+    @Test
+    void bootstrap_shouldThrowNotFound_whenUserDoesNotExist() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> bootstrapService.bootstrap(EMAIL));
+    }
+}
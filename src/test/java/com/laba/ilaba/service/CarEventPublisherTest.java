@@ -0,0 +1,113 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.config.BackgroundScheduler;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseBroadcaster;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarEventPublisherTest {
+
+    @Mock
+    private BackgroundScheduler scheduler;
+
+    @Mock
+    private Sse sse;
+
+    @Mock
+    private SseBroadcaster broadcaster;
+
+    @Mock
+    private SseEventSink sink;
+
+    @Mock
+    private OutboundSseEvent outbound;
+
+    private OutboundSseEvent.Builder builder;
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @InjectMocks
+    private CarEventPublisher publisher = new CarEventPublisher(Runnable::run);
+
+    @InjectMocks
+    private CarEventPublisher deferred = new CarEventPublisher(queued::add);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        builder = mock(OutboundSseEvent.Builder.class, RETURNS_SELF);
+        when(builder.build()).thenReturn(outbound);
+        when(sse.newEventBuilder()).thenReturn(builder);
+        when(sse.newBroadcaster()).thenReturn(broadcaster);
+    }
+
+    @Test
+    void subscribe_shouldReplayEventsAfterTheGivenId_whenTheIdIsFromThisNode() {
+        // Arrange
+        publisher.subscribe(mock(SseEventSink.class), sse, null);
+        publisher.availabilityChanged(1L, false);
+        publisher.availabilityChanged(2L, false);
+        publisher.availabilityChanged(3L, true);
+        ArgumentCaptor<String> ids = ArgumentCaptor.forClass(String.class);
+        verify(builder, times(3)).id(ids.capture());
+        String first = ids.getAllValues().get(0);
+
+        // Act
+        publisher.subscribe(sink, sse, first);
+
+        // Assert
+        verify(sink, times(2)).send(outbound);
+        verify(broadcaster).register(sink);
+        assertTrue(first.endsWith("-1"));
+    }
+
+    @Test
+    void subscribe_shouldSendReset_whenTheIdIsFromAnotherNode() {
+        // Arrange
+        publisher.subscribe(mock(SseEventSink.class), sse, null);
+        publisher.availabilityChanged(1L, false);
+
+        // Act
+        publisher.subscribe(sink, sse, "0badc0de-1");
+
+        // Assert
+        verify(builder).name("reset");
+        verify(sink, times(1)).send(outbound);
+        verify(broadcaster).register(sink);
+    }
+
+    @Test
+    void publish_shouldBroadcastThroughTheDispatcher() {
+        // Arrange
+        deferred.subscribe(sink, sse, null);
+        queued.remove(0).run();
+
+        // Act
+        deferred.availabilityChanged(1L, false);
+
+        // Assert
+        verify(broadcaster, never()).broadcast(outbound);
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        verify(broadcaster).broadcast(outbound);
+    }
+}
@@ -0,0 +1,85 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.dto.CarImportResponse;
+import com.laba.ilaba.repository.CarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CarImportServiceTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CarEventPublisher carEventPublisher;
+
+    @InjectMocks
+    private CarImportService carImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void importCsv_shouldSaveValidRowsInChunks_andReportInvalidRows() throws Exception {
+        // Arrange
+        String csv = """
+                make,model,year,pricePerDay
+                Toyota,Camry,2022,50.00
+                "Mercedes, Benz",E200,2021,90
+                Ford,,2020,40
+                Honda,Civic,twenty,30
+                Kia,Rio,2019,25.5
+                """;
+
+        // Act
+        CarImportResponse result = carImportService.importCsv(stream(csv), 2);
+
+        // Assert
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(3L, 4L), result.getErrors().stream().map(CarImportResponse.RowError::getRow).toList());
+        verify(carRepository, times(2)).saveAll(anyList());
+        verify(carEventPublisher).fleetChanged();
+    }
+
+    @Test
+    void importJson_shouldReportWholeChunk_whenDatabaseRejectsIt() throws Exception {
+        // Arrange
+        String json = """
+                [{"make":"Toyota","model":"Camry","year":2022,"pricePerDay":50.00},
+                 {"make":"Kia","model":"Rio","year":2019,"pricePerDay":"25.5"}]
+                """;
+        doThrow(new RuntimeException("duplicate key")).when(carRepository).saveAll(anyList());
+
+        // Act
+        CarImportResponse result = carImportService.importJson(stream(json), 10);
+
+        // Assert
+        assertEquals(0, result.getImported());
+        assertEquals(2, result.getFailed());
+        verify(carEventPublisher, never()).fleetChanged();
+    }
+
+    @Test
+    void splitCsvLine_shouldHandleQuotedFields() {
+        assertEquals(List.of("a", "b, c", "d\"e", ""), CarImportService.splitCsvLine("a,\"b, c\",\"d\"\"e\","));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.dto.CarResponse;
+import com.laba.ilaba.dto.MultiGetResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.repository.CarRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CarServiceTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private CarEventPublisher carEventPublisher;
+
+    @InjectMocks
+    private CarService carService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getCarsByIds_shouldPreserveRequestedOrder_andReportMissingIds() {
+        // Arrange
+        List<Long> ids = List.of(3L, 1L, 7L, 2L);
+        when(carRepository.findAllById(ids)).thenReturn(List.of(car(1L), car(2L), car(3L)));
+
+        // Act
+        MultiGetResponse<CarResponse> result = carService.getCarsByIds(ids);
+
+        // Assert
+        assertEquals(List.of(3L, 1L, 2L), result.getItems().stream()
+                .map(CarResponse::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(7L), result.getMissing());
+        verify(carRepository).findAllById(ids);
+    }
+
+    private static Car car(Long id) {
+        return Car.builder()
+                .id(id)
+                .make("Toyota")
+                .model("Camry")
+                .year(2022)
+                .pricePerDay(new BigDecimal("50.00"))
+                .isAvailable(true)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.dto.ChangeFeedResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceTest {
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private ChangeFeedService changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(changeLogRepository.findSince(0L, 11)).thenReturn(List.of(
+                change(1L, 7L, ChangeLogEntry.Operation.UPSERT),
+                change(2L, 8L, ChangeLogEntry.Operation.UPSERT)));
+        when(orderRepository.findAllById(anyCollection(), anyBoolean())).thenReturn(List.of());
+    }
+
+    @Test
+    void getChanges_shouldTombstoneOnlyCarsThatAreGone() {
+        // Arrange
+        when(carRepository.findAllById(anyCollection())).thenReturn(List.of(Car.builder().id(7L).build()));
+
+        // Act
+        ChangeFeedResponse feed = changeFeedService.getChanges(0L, 10);
+
+        // Assert
+        assertEquals("upsert", feed.getChanges().get(0).getOp());
+        assertEquals("delete", feed.getChanges().get(1).getOp());
+        assertEquals(2L, feed.getNextSince().longValue());
+    }
+
+    @Test
+    void getChanges_shouldFailThePage_whenTheLookupFails() {
+        // Arrange
+        when(carRepository.findAllById(anyCollection())).thenThrow(new QueryTimeoutException("replica timeout"));
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> changeFeedService.getChanges(0L, 10));
+    }
+
+    private static ChangeLogEntry change(Long seq, Long carId, ChangeLogEntry.Operation operation) {
+        return ChangeLogEntry.builder()
+                .seq(seq)
+                .entityType(ChangeLogEntry.EntityType.CAR)
+                .entityId(carId)
+                .operation(operation)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.config.BackgroundScheduler;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FleetStatisticsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 5, 30);
+
+    @Mock
+    private EntityManagerFactory readOnlyEntityManagerFactory;
+
+    @Mock
+    private BackgroundScheduler scheduler;
+
+    @InjectMocks
+    private FleetStatistics statistics = new FleetStatistics();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void orderStatusChanged_shouldMoveCountsBetweenStatuses_andCountRevenueOncePaid() {
+        // Arrange
+        Order order = order(7L, Order.Status.PENDING, "150.00");
+        statistics.orderCreated(order);
+        FleetStatistics.OrderFacts pending = FleetStatistics.OrderFacts.of(order);
+
+        // Act
+        statistics.orderStatusChanged(pending, Order.Status.PAID);
+
+        // Assert
+        Map<String, Object> fleet = statistics.fleet();
+        assertEquals(1L, fleet.get("orders"));
+        assertEquals(0L, ((Map<?, ?>) fleet.get("byStatus")).get("PENDING"));
+        assertEquals(1L, ((Map<?, ?>) fleet.get("byStatus")).get("PAID"));
+        Map<?, ?> car = (Map<?, ?>) ((Map<?, ?>) fleet.get("cars")).get(7L);
+        assertEquals(3L, car.get("bookedDays"));
+        assertEquals(new BigDecimal("150.00"), statistics.revenue().get("total"));
+        Map<?, ?> may = (Map<?, ?>) ((Map<?, ?>) statistics.revenue().get("months")).get("2024-05");
+        assertEquals(new BigDecimal("150.00"), may.get("revenue"));
+    }
+
+    @Test
+    void orderStatusChanged_shouldDropRejectedOrdersFromDaysAndRevenue() {
+        // Arrange
+        Order order = order(7L, Order.Status.PAID, "99.99");
+        statistics.orderCreated(order);
+
+        // Act
+        statistics.orderStatusChanged(FleetStatistics.OrderFacts.of(order), Order.Status.REJECTED);
+
+        // Assert
+        Map<?, ?> car = (Map<?, ?>) ((Map<?, ?>) statistics.fleet().get("cars")).get(7L);
+        assertEquals(0L, car.get("orders"));
+        assertEquals(0L, car.get("bookedDays"));
+        assertEquals(new BigDecimal("0.00"), statistics.revenue().get("total"));
+        assertEquals(1L, ((Map<?, ?>) statistics.fleet().get("byStatus")).get("REJECTED"));
+    }
+
+    @Test
+    void rebuildOrRetry_shouldScheduleARetry_whenTheRebuildFails() {
+        // Arrange
+        when(readOnlyEntityManagerFactory.createEntityManager()).thenThrow(new IllegalStateException("replica down"));
+
+        // Act
+        statistics.rebuildOrRetry();
+
+        // Assert
+        assertFalse(statistics.isReady());
+        verify(scheduler).schedule(eq("fleet-statistics-retry"), any(Runnable.class), eq(10L), eq(TimeUnit.SECONDS));
+    }
+
+    private static Order order(Long carId, Order.Status status, String totalPrice) {
+        Car car = new Car();
+        car.setId(carId);
+        return Order.builder()
+                .carDto(car)
+                .startDate(START)
+                .endDate(START.plusDays(3))
+                .totalPrice(new BigDecimal(totalPrice))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.repository.IdempotencyRepository;
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRepository idempotencyRepository;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService = new IdempotencyService(Clock.systemUTC(), 100);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotencyRepository.claim(anyString(), anyString(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void execute_shouldReplayStoredReply_withoutRunningTheRequestAgain() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        IdempotencyService.Reply first = idempotencyService.execute("a@example.com", "key-1", "1|2026-01-01",
+                () -> new IdempotencyService.Reply(201, "{\"id\":" + runs.incrementAndGet() + "}"));
+        IdempotencyService.Reply retry = idempotencyService.execute("a@example.com", "key-1", "1|2026-01-01",
+                () -> new IdempotencyService.Reply(201, "{\"id\":" + runs.incrementAndGet() + "}"));
+
+        // Assert
+        assertEquals(1, runs.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(201, retry.status());
+        assertEquals("{\"id\":1}", retry.body());
+        verify(idempotencyRepository, times(1)).claim(anyString(), anyString(), anyLong());
+        verify(idempotencyRepository).complete(anyString(), eq(201), eq("{\"id\":1}"), anyLong());
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedForDifferentRequest() {
+        // Arrange
+        idempotencyService.execute("a@example.com", "key-1", "1|2026-01-01",
+                () -> new IdempotencyService.Reply(201, "{}"));
+
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class, () -> idempotencyService.execute(
+                "a@example.com", "key-1", "2|2026-01-01", () -> new IdempotencyService.Reply(201, "{}")));
+        assertEquals(422, e.getResponse().getStatus());
+    }
+
+    @Test
+    void execute_shouldNotStoreServerErrors() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        idempotencyService.execute("a@example.com", "key-1", "1",
+                () -> new IdempotencyService.Reply(500 + runs.getAndIncrement(), "boom"));
+        IdempotencyService.Reply retry = idempotencyService.execute("a@example.com", "key-1", "1",
+                () -> new IdempotencyService.Reply(201, "{}" + runs.getAndIncrement()));
+
+        // Assert
+        assertEquals(2, runs.get());
+        assertEquals(201, retry.status());
+        assertFalse(retry.replayed());
+        verify(idempotencyRepository).release(anyString());
+    }
+
+    @Test
+    void execute_shouldNotStoreConflicts_soTheRetryRunsAgain() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        idempotencyService.execute("a@example.com", "key-1", "1",
+                () -> {
+                    runs.incrementAndGet();
+                    return new IdempotencyService.Reply(409, "retry shortly");
+                });
+        IdempotencyService.Reply retry = idempotencyService.execute("a@example.com", "key-1", "1",
+                () -> new IdempotencyService.Reply(201, "{}" + runs.getAndIncrement()));
+
+        // Assert
+        assertEquals(2, runs.get());
+        assertEquals(201, retry.status());
+        assertFalse(retry.replayed());
+        verify(idempotencyRepository).release(anyString());
+        verify(idempotencyRepository, never()).complete(anyString(), eq(409), anyString(), anyLong());
+    }
+
+    @Test
+    void execute_shouldCollapseConcurrentRequestsWithSameKey() throws Exception {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyService.Reply> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("a@example.com", "key-1", "1", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return new IdempotencyService.Reply(201, "{}");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<IdempotencyService.Reply> second = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("a@example.com", "key-1", "1", () -> {
+                    runs.incrementAndGet();
+                    return new IdempotencyService.Reply(201, "{}");
+                }));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Assert
+        assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+        assertTrue(second.get(5, TimeUnit.SECONDS).replayed());
+        assertEquals(1, runs.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
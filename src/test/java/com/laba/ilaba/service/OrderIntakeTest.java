@@ -0,0 +1,145 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.dto.OrderIntakeResponse;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderIntakeTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EntityTransaction transaction;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    @Mock
+    private EntityCacheManager entityCacheManager;
+
+    @Mock
+    private BookingCoordinator bookingCoordinator;
+
+    @Mock
+    private CarEventPublisher carEventPublisher;
+
+    @Mock
+    private FleetStatistics fleetStatistics;
+
+    @InjectMocks
+    private OrderIntake orderIntake;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        when(entityManager.getReference(eq(User.class), any())).thenReturn(new User());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writeBatch_shouldInsertAvailableOrdersInOneTransaction_andFailTheRest() {
+        // Arrange
+        Car available = car(1L, true);
+        Car taken = car(2L, false);
+        when(carRepository.findAllByIdForWrite(eq(entityManager), anyCollection())).thenReturn(List.of(available, taken));
+        OrderIntake.PendingOrder first = pending(100L, 1L);
+        OrderIntake.PendingOrder second = pending(150L, 2L);
+        orderIntake.submit(first);
+        orderIntake.submit(second);
+
+        // Act
+        orderIntake.writeBatch(List.of(first, second));
+
+        // Assert
+        ArgumentCaptor<List<Order>> written = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository).persistAll(eq(entityManager), written.capture());
+        assertEquals(List.of(100L), written.getValue().stream().map(Order::getId).collect(Collectors.toList()));
+        verify(transaction, times(1)).commit();
+        assertFalse(available.getIsAvailable());
+
+        assertTrue(orderIntake.status(100L).isEmpty());
+        assertEquals(OrderIntakeResponse.State.FAILED, orderIntake.status(150L).orElseThrow().getState());
+        verify(bookingCoordinator).release(1L, first, true);
+        verify(bookingCoordinator).release(2L, second, false);
+        verify(carEventPublisher).availabilityChanged(1L, false);
+    }
+
+    @Test
+    void stop_shouldWriteQueuedOrdersBeforeReturning_andRejectNewOnes() {
+        // Arrange
+        when(carRepository.findAllByIdForWrite(eq(entityManager), anyCollection())).thenReturn(List.of(car(1L, true)));
+        OrderIntake.PendingOrder queued = pending(100L, 1L);
+        orderIntake.submit(queued);
+
+        // Act
+        orderIntake.stop();
+
+        // Assert
+        verify(orderRepository).persistAll(eq(entityManager), anyList());
+        verify(transaction).commit();
+        verify(bookingCoordinator).release(1L, queued, true);
+        assertTrue(orderIntake.status(100L).isEmpty());
+        assertThrows(ServiceUnavailableException.class, () -> orderIntake.submit(pending(101L, 2L)));
+        assertTrue(orderIntake.status(101L).isEmpty());
+    }
+
+    private static Car car(Long id, boolean available) {
+        return Car.builder()
+                .id(id)
+                .make("Toyota")
+                .model("Camry")
+                .year(2022)
+                .pricePerDay(new BigDecimal("50.00"))
+                .isAvailable(available)
+                .build();
+    }
+
+    private static OrderIntake.PendingOrder pending(long id, Long carId) {
+        return new OrderIntake.PendingOrder(id, 7L, carId, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 5),
+                new BigDecimal("200.00"));
+    }
+}
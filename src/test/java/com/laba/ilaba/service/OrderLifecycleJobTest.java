@@ -0,0 +1,130 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.EntityCacheManager;
+import com.laba.ilaba.entity.ChangeLogEntry;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.ChangeLogRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import com.laba.ilaba.repository.OrderRepository.TransitionedOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderLifecycleJobTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 5, 1);
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private EntityTransaction transaction;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    @Mock
+    private EntityCacheManager entityCacheManager;
+
+    @Mock
+    private CarEventPublisher carEventPublisher;
+
+    @Mock
+    private OrderLifecycleMetrics metrics;
+
+    @Mock
+    private FleetStatistics fleetStatistics;
+
+    @InjectMocks
+    private OrderLifecycleJob job;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        when(orderRepository.transitionDueOrders(eq(entityManager), any(), any(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void run_shouldReleaseCarsOfCompletedOrders_andNotifyAfterCommit() {
+        // Arrange
+        when(orderRepository.transitionDueOrders(eq(entityManager), eq(Order.COMPLETE_ENDED), any(), anyInt()))
+                .thenReturn(List.of(paid(1L, 10L), paid(2L, null)));
+        when(carRepository.releaseCars(entityManager, Set.of(10L))).thenReturn(List.of(10L));
+
+        // Act
+        job.run();
+
+        // Assert
+        verify(changeLogRepository).record(entityManager, ChangeLogEntry.EntityType.ORDER,
+                ChangeLogEntry.Operation.UPSERT, List.of(1L, 2L));
+        verify(changeLogRepository).record(entityManager, ChangeLogEntry.EntityType.CAR,
+                ChangeLogEntry.Operation.UPSERT, List.of(10L));
+        verify(entityCacheManager).ordersChanged(List.of(1L, 2L));
+        verify(entityCacheManager).carsChangedById(List.of(10L));
+        verify(carEventPublisher).availabilityChanged(10L, true);
+        verify(metrics).recordRun(eq(2), eq(0), eq(0), eq(1), eq(1), anyLong());
+        verify(entityManager).close();
+    }
+
+    @Test
+    void run_shouldNotReleaseCarsWhenActivatingOrders() {
+        // Arrange
+        when(orderRepository.transitionDueOrders(eq(entityManager), eq(Order.ACTIVATE_STARTED), any(), anyInt()))
+                .thenReturn(List.of(paid(3L, 11L)));
+
+        // Act
+        job.run();
+
+        // Assert
+        verify(carEventPublisher, never()).availabilityChanged(11L, true);
+        verify(metrics).recordRun(eq(0), eq(1), eq(0), eq(0), eq(1), anyLong());
+    }
+
+    @Test
+    void run_shouldReportTransitionsToFleetStatistics() {
+        // Arrange
+        when(orderRepository.transitionDueOrders(eq(entityManager), eq(Order.ACTIVATE_STARTED), any(), anyInt()))
+                .thenReturn(List.of(paid(3L, 11L)));
+
+        // Act
+        job.run();
+
+        // Assert
+        verify(fleetStatistics).orderStatusChanged(new FleetStatistics.OrderFacts(11L, Order.Status.PAID,
+                START, START.plusDays(3), BigDecimal.TEN), Order.Status.ACTIVE);
+    }
+
+    private static TransitionedOrder paid(long orderId, Long carId) {
+        return new TransitionedOrder(orderId, carId, Order.Status.PAID, START, START.plusDays(3), BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,162 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.dto.OrderRequest;
+import com.laba.ilaba.dto.OrderStatusBatchResponse;
+import com.laba.ilaba.dto.OrderStatusUpdate;
+import com.laba.ilaba.entity.Car;
+import com.laba.ilaba.entity.Order;
+import com.laba.ilaba.entity.User;
+import com.laba.ilaba.repository.CarRepository;
+import com.laba.ilaba.repository.OrderRepository;
+import com.laba.ilaba.repository.UserRepository;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CarRepository carRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CarService carService;
+
+    @Mock
+    private CarEventPublisher carEventPublisher;
+
+    @Mock
+    private FleetStatistics fleetStatistics;
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private BookingCoordinator bookingCoordinator;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void updateOrderStatuses_shouldApplyRulesInOneWrite_andReportPerItemResults() {
+        // Arrange
+        Car rejectedCar = car(10L);
+        Car completedCar = car(20L);
+        Order rejected = order(1L, rejectedCar);
+        Order completed = order(2L, completedCar);
+        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(new User()));
+        when(orderRepository.findAllByIdForWrite(anyCollection())).thenReturn(List.of(rejected, completed));
+
+        List<OrderStatusUpdate> updates = List.of(
+                new OrderStatusUpdate(1L, "rejected"),
+                new OrderStatusUpdate(2L, "COMPLETED"),
+                new OrderStatusUpdate(3L, "PAID"),
+                new OrderStatusUpdate(2L, "PAID"),
+                new OrderStatusUpdate(4L, "NOPE"));
+
+        // Act
+        OrderStatusBatchResponse result = orderService.updateOrderStatuses(updates, "admin@example.com");
+
+        // Assert
+        assertEquals(2, result.getUpdated());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(200, 200, 404, 400, 400), result.getResults().stream()
+                .map(OrderStatusBatchResponse.ItemResult::getStatus)
+                .collect(Collectors.toList()));
+
+        assertEquals(Order.Status.REJECTED, rejected.getStatus());
+        assertNull(rejected.getCarDto());
+        assertNull(rejectedCar.getCurrentOrderId());
+        assertTrue(rejectedCar.getIsAvailable());
+        assertEquals(Order.Status.COMPLETED, completed.getStatus());
+        assertTrue(completedCar.getIsAvailable());
+
+        verify(orderRepository).saveStatusChanges(List.of(rejected, completed), List.of(rejectedCar, completedCar));
+        verify(carEventPublisher).availabilityChanged(10L, true);
+        verify(carEventPublisher).availabilityChanged(20L, true);
+    }
+
+    @Test
+    void createOrder_shouldNotClaimTheCar_whenTheTotalDoesNotMatchTheQuote() {
+        // Arrange
+        LocalDate start = LocalDate.now().plusDays(1);
+        OrderRequest request = new OrderRequest(1L, start, start.plusDays(2), new BigDecimal("1.00"));
+        Car car = car(1L);
+        car.setIsAvailable(true);
+        when(userRepository.findByEmailForWrite("test@example.com")).thenReturn(Optional.of(new User()));
+        when(carRepository.findById(1L)).thenReturn(Optional.of(car));
+        when(pricingEngine.quote(car, request.getStartDate(), request.getEndDate()))
+                .thenReturn(new PricingEngine.Quote(1L, request.getStartDate(), request.getEndDate(), 3, 5_000L, 15_000L));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> orderService.createOrder(request, "test@example.com"));
+        verify(bookingCoordinator, never()).book(anyLong(), any());
+    }
+
+    @Test
+    void createOrder_shouldNotClaimTheCar_whenTheUserIsUnknown() {
+        // Arrange
+        LocalDate start = LocalDate.now().plusDays(1);
+        OrderRequest request = new OrderRequest(1L, start, start.plusDays(2), null);
+        when(userRepository.findByEmailForWrite("ghost@example.com")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> orderService.createOrder(request, "ghost@example.com"));
+        verify(bookingCoordinator, never()).book(anyLong(), any());
+    }
+
+    private static Car car(Long id) {
+        return Car.builder()
+                .id(id)
+                .make("Toyota")
+                .model("Camry")
+                .year(2022)
+                .pricePerDay(new BigDecimal("50.00"))
+                .isAvailable(false)
+                .currentOrderId(String.valueOf(id))
+                .build();
+    }
+
+    private static Order order(Long id, Car car) {
+        return Order.builder()
+                .id(id)
+                .carDto(car)
+                .userDto(User.builder().id(7L).email("user@example.com").username("user").role(User.Role.USER).build())
+                .startDate(LocalDate.of(2026, 1, 1))
+                .endDate(LocalDate.of(2026, 1, 5))
+                .totalPrice(new BigDecimal("200.00"))
+                .status(Order.Status.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.laba.ilaba.service;
+
+import com.laba.ilaba.cache.QuoteCache;
+import com.laba.ilaba.entity.Car;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PricingEngineTest {
+
+    private static final List<String> RULES = List.of(
+            "# test rules",
+            "season 06-15 08-31 +20",
+            "season 12-20 01-05 +25%",
+            "duration 28 -25",
+            "duration 7 -10");
+
+    @Spy
+    private QuoteCache quoteCache = new QuoteCache(100);
+
+    @InjectMocks
+    private PricingEngine pricingEngine = new PricingEngine(PricingRules.parse(RULES));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void quote_shouldChargeDailyPriceOutOfSeason() {
+        // Act
+        PricingEngine.Quote quote = pricingEngine.quote(car("50.00"), LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 4));
+
+        // Assert
+        assertEquals(3, quote.days());
+        assertEquals(new BigDecimal("150.00"), quote.total());
+    }
+
+    @Test
+    void quote_shouldApplySeasonPerDayThenDurationDiscount() {
+        // Act
+        PricingEngine.Quote summer = pricingEngine.quote(car("50.00"), LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 8));
+        PricingEngine.Quote edge = pricingEngine.quote(car("19.99"), LocalDate.of(2026, 6, 14), LocalDate.of(2026, 6, 16));
+        PricingEngine.Quote newYear = pricingEngine.quote(car("40.00"), LocalDate.of(2026, 12, 30), LocalDate.of(2027, 1, 2));
+
+        // Assert
+        assertEquals(new BigDecimal("378.00"), summer.total()); // 7 x 60.00, -10%
+        assertEquals(new BigDecimal("43.98"), edge.total()); // 19.99 + 23.99
+        assertEquals(new BigDecimal("150.00"), newYear.total()); // 3 x 50.00 across the year end
+    }
+
+    @Test
+    void quote_shouldMemoizeTotals_andRecomputeAfterPriceChange() {
+        // Arrange
+        Car car = car("50.00");
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 4);
+        pricingEngine.quote(car, from, to);
+
+        // Act
+        PricingEngine.Quote cached = pricingEngine.quote(car, from, to);
+        car.setPricePerDay(new BigDecimal("60.00"));
+        PricingEngine.Quote repriced = pricingEngine.quote(car, from, to);
+
+        // Assert
+        assertEquals(new BigDecimal("150.00"), cached.total());
+        assertEquals(new BigDecimal("180.00"), repriced.total());
+        verify(quoteCache, times(1)).put(eq(1L), eq(from), eq(to), eq(5000L), anyLong());
+        verify(quoteCache, times(1)).put(eq(1L), eq(from), eq(to), eq(6000L), anyLong());
+    }
+
+    @Test
+    void quote_shouldRejectReversedRange() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> pricingEngine.quote(car("50.00"), LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 1)));
+        verify(quoteCache, never()).put(anyLong(), eq(LocalDate.of(2026, 3, 4)), eq(LocalDate.of(2026, 3, 1)), anyLong(), anyLong());
+    }
+
+    private static Car car(String pricePerDay) {
+        return Car.builder()
+                .id(1L)
+                .make("Toyota")
+                .model("Camry")
+                .year(2022)
+                .pricePerDay(new BigDecimal(pricePerDay))
+                .build();
+    }
+}